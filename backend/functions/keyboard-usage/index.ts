@@ -0,0 +1,118 @@
+import { serve } from "https://deno.land/std@0.168.0/http/server.ts";
+import { createClient } from 'https://esm.sh/@supabase/supabase-js@2';
+
+// Batched suggestion usage from the Android keyboard (UsageEventJson on the client)
+interface KeyboardUsageEvent {
+    timestampMs: number;
+    tone: string;
+    platform: string;
+    engagementPrediction: number;
+    text: string;
+}
+
+interface KeyboardUsageBatch {
+    events: KeyboardUsageEvent[];
+}
+
+// The keyboard uploads at most a few hundred events at once; anything larger is not ours
+const MAX_EVENTS_PER_BATCH = 500;
+
+serve(async (req) => {
+    const requestId = crypto.randomUUID();
+
+    const corsHeaders = {
+        'Access-Control-Allow-Origin': '*',
+        'Access-Control-Allow-Headers': 'authorization, x-client-info, apikey, content-type, content-encoding',
+        'Access-Control-Allow-Methods': 'POST, OPTIONS',
+        'Access-Control-Max-Age': '86400',
+    };
+
+    if (req.method === 'OPTIONS') {
+        return new Response('ok', { headers: corsHeaders });
+    }
+
+    if (req.method !== 'POST') {
+        return jsonResponse({ success: false, error: 'Method not allowed', requestId }, 405, corsHeaders);
+    }
+
+    try {
+        // Authenticate user
+        const authHeader = req.headers.get('Authorization');
+        if (!authHeader || !authHeader.startsWith('Bearer ')) {
+            return jsonResponse({ success: false, error: 'Authentication required', requestId }, 401, corsHeaders);
+        }
+
+        // Inserts run as the user, so row-level security applies
+        const supabase = createClient(
+            Deno.env.get('SUPABASE_URL') ?? '',
+            Deno.env.get('SUPABASE_ANON_KEY') ?? '',
+            { global: { headers: { Authorization: authHeader } } }
+        );
+
+        const token = authHeader.replace('Bearer ', '');
+        const { data: user, error: authError } = await supabase.auth.getUser(token);
+        if (authError || !user?.user) {
+            return jsonResponse({ success: false, error: 'Invalid authentication token', requestId }, 401, corsHeaders);
+        }
+
+        let batch: KeyboardUsageBatch;
+        try {
+            batch = await readBatch(req);
+        } catch (_error) {
+            return jsonResponse({ success: false, error: 'Invalid request body', requestId }, 400, corsHeaders);
+        }
+
+        const events = Array.isArray(batch?.events) ? batch.events : null;
+        if (!events || events.length > MAX_EVENTS_PER_BATCH) {
+            return jsonResponse({ success: false, error: 'Invalid events', requestId }, 400, corsHeaders);
+        }
+
+        const rows = events
+            .filter(event => typeof event?.timestampMs === 'number' && typeof event?.tone === 'string')
+            .map(event => ({
+                user_id: user.user.id,
+                event_type: 'keyboard_suggestion_used',
+                event_category: 'user',
+                platform: typeof event.platform === 'string' ? event.platform : null,
+                event_data: {
+                    tone: event.tone,
+                    engagement_prediction: typeof event.engagementPrediction === 'number' ? event.engagementPrediction : null,
+                    text: typeof event.text === 'string' ? event.text : null,
+                    used_at: new Date(event.timestampMs).toISOString()
+                }
+            }));
+
+        if (rows.length > 0) {
+            const { error: insertError } = await supabase.from('analytics_events').insert(rows);
+            if (insertError) {
+                console.error('Keyboard usage insert error:', insertError);
+                return jsonResponse({ success: false, error: 'Failed to record usage', requestId }, 500, corsHeaders);
+            }
+        }
+
+        // Malformed events are dropped rather than failing the batch; the client would only resend them
+        return jsonResponse({ success: true, accepted: rows.length, requestId }, 200, corsHeaders);
+
+    } catch (error) {
+        console.error('Keyboard usage error:', error);
+        return jsonResponse({ success: false, error: 'Usage upload failed', requestId }, 500, corsHeaders);
+    }
+});
+
+// The keyboard gzips its batches; plain JSON is accepted too
+async function readBatch(req: Request): Promise<KeyboardUsageBatch> {
+    const encoding = (req.headers.get('Content-Encoding') || '').toLowerCase();
+    if (encoding !== 'gzip' || !req.body) {
+        return await req.json();
+    }
+
+    const inflated = req.body.pipeThrough(new DecompressionStream('gzip'));
+    return JSON.parse(await new Response(inflated).text());
+}
+
+function jsonResponse(body: Record<string, any>, status: number, corsHeaders: Record<string, string>): Response {
+    return new Response(JSON.stringify(body), {
+        status,
+        headers: { ...corsHeaders, 'Content-Type': 'application/json' }
+    });
+}
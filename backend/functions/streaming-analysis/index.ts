@@ -500,6 +500,20 @@ serve(async (req) => {
         }
 
         const supabase = createClient(supabaseUrl, serviceRoleKey);
+
+        // Callers with a session (the Android keyboard) are identified by their token
+        const authHeader = req.headers.get('Authorization');
+        if (authHeader && authHeader.startsWith('Bearer ')) {
+            const { data: user, error: authError } = await supabase.auth.getUser(authHeader.replace('Bearer ', ''));
+            if (authError || !user?.user) {
+                return new Response(
+                    JSON.stringify({ success: false, error: 'Invalid authentication token' }),
+                    { status: 401, headers: { ...corsHeaders, 'Content-Type': 'application/json' } }
+                );
+            }
+            requestData.userId = user.user.id;
+        }
+
         const streamingService = new StreamingAnalysisService(supabase, openaiApiKey, geminiApiKey);
 
         const stream = await streamingService.processStreamingAnalysis(requestData);
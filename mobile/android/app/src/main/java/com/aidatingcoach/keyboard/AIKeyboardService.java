@@ -5,17 +5,24 @@
 
 package com.aidatingcoach.keyboard;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
 import android.inputmethodservice.InputMethodService;
 import android.inputmethodservice.Keyboard;
 import android.inputmethodservice.KeyboardView;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 import android.os.Handler;
 import android.os.Looper;
-import android.text.TextUtils;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputConnection;
 import android.widget.LinearLayout;
@@ -26,33 +33,131 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.aidatingcoach.R;
 import com.aidatingcoach.keyboard.adapters.SuggestionAdapter;
+import com.aidatingcoach.keyboard.core.AnalysisPipeline;
+import com.aidatingcoach.keyboard.core.AppProfile;
+import com.aidatingcoach.keyboard.core.KeyboardMetrics;
+import com.aidatingcoach.keyboard.core.PriorityTaskScheduler;
+import com.aidatingcoach.keyboard.core.RequestQuota;
+import com.aidatingcoach.keyboard.core.ShiftState;
+import com.aidatingcoach.keyboard.core.SuggestionCache;
+import com.aidatingcoach.keyboard.core.SuggestionPool;
+import com.aidatingcoach.keyboard.core.SuggestionStrip;
+import com.aidatingcoach.keyboard.core.TextContextBuffer;
+import com.aidatingcoach.keyboard.core.TypingCadence;
+import com.aidatingcoach.keyboard.core.UsageEventLog;
 import com.aidatingcoach.keyboard.models.MessageSuggestion;
 import com.aidatingcoach.keyboard.models.SuggestionTone;
 import com.aidatingcoach.keyboard.services.AICoachingService;
-import com.aidatingcoach.keyboard.utils.AppDetector;
+import com.aidatingcoach.keyboard.services.BinarySuggestionReader;
+import com.aidatingcoach.keyboard.services.CoachingHttpClient;
+import com.aidatingcoach.keyboard.services.LocalSuggestionEngine;
+import com.aidatingcoach.keyboard.services.PersistentSuggestionStore;
+import com.aidatingcoach.keyboard.services.StreamingAnalysisCallback;
+import com.aidatingcoach.keyboard.services.StreamingAnalysisClient;
+import com.aidatingcoach.keyboard.services.UsageEventJson;
+import com.aidatingcoach.keyboard.services.UsageTelemetryQueue;
+import com.aidatingcoach.keyboard.utils.FrameDispatcher;
 import com.aidatingcoach.keyboard.utils.HapticFeedbackHelper;
 
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import okhttp3.Request;
+import okhttp3.Response;
 
 public class AIKeyboardService extends InputMethodService implements KeyboardView.OnKeyboardActionListener {
     
     // Constants
-    private static final String PREFS_NAME = "AIKeyboardPrefs";
+    private static final String TAG = "AIKeyboardService";
     private static final String PREF_SUGGESTIONS_ENABLED = "suggestions_enabled";
     private static final String PREF_HAPTIC_ENABLED = "haptic_enabled";
     private static final String PREF_AUTO_ANALYSIS = "auto_analysis";
+    private static final String PREF_HEDGE_REQUESTS = "hedge_requests";
+    private static final String PREF_TYPING_GAP_MEAN = "typing_gap_mean_ms";
+    private static final String PREF_TYPING_GAP_VARIANCE = "typing_gap_variance";
+    private static final String PREF_QUOTA_TOKENS = "quota_tokens";
+    private static final String PREF_QUOTA_REFILLED_AT = "quota_refilled_at";
+    private static final String PREF_QUOTA_PERIOD_REMAINING = "quota_period_remaining";
+    private static final String PREF_QUOTA_PERIOD_RESET_AT = "quota_period_reset_at";
+    private static final String PREF_QUOTA_BLOCKED_UNTIL = "quota_blocked_until";
+    
+    private static final long SUGGESTION_CACHE_MAX_BYTES = 256 * 1024;
+    private static final long SUGGESTION_CACHE_TTL_MS = 10 * 60 * 1000; // Default; app profiles set their own
+    private static final int SUGGESTION_OVERHEAD_BYTES = 48;
+    private static final int INSTANT_SUGGESTION_COUNT = 3;
+    private static final int MAX_STRIP_SUGGESTIONS = 6;
+    private static final int MAX_SUGGESTIONS_PER_TONE = 2;
+    private static final long METRICS_SUMMARY_INTERVAL_MS = 15 * 60 * 1000;
+    
+    // How the suggestion pool and strip read a suggestion
+    private static final SuggestionPool.Attributes<MessageSuggestion> SUGGESTION_ATTRIBUTES =
+        new SuggestionPool.Attributes<MessageSuggestion>() {
+            @Override
+            public CharSequence getText(MessageSuggestion suggestion) {
+                return suggestion.getText();
+            }
+            
+            @Override
+            public int getTone(MessageSuggestion suggestion) {
+                return suggestion.getTone().ordinal();
+            }
+            
+            @Override
+            public double getScore(MessageSuggestion suggestion) {
+                return suggestion.getEngagementPrediction();
+            }
+        };
+    
+    // Until the app reports the tier, stay on-device; nothing has been paid for yet
+    private static final RequestQuota.Tier DEFAULT_TIER = RequestQuota.Tier.SPARK;
+    
+    private static final int WORKER_THREADS = 3;
+    private static final int WORK_QUEUE_CAPACITY = 8;
     
-    private static final int ANALYSIS_DELAY_MS = 1000; // Delay before analyzing text
-    private static final int MIN_WORDS_FOR_ANALYSIS = 3;
+    // Merge keys: a newer task of the same kind supersedes a queued one
+    private static final String TASK_ANALYSIS = "analysis";
+    private static final String TASK_ANALYSIS_HEDGE = "analysis_hedge";
+    private static final String TASK_MORE_SUGGESTIONS = "more_suggestions";
+    private static final String TASK_PREFETCH = "prefetch";
+    private static final String TASK_TELEMETRY_UPLOAD = "telemetry_upload";
+    
+    // Configuration changes that alter key geometry or labels. Theme (uiMode) and
+    // font scale changes recreate the input view but leave the parsed layouts valid.
+    private static final int LAYOUT_CONFIG_CHANGES = ActivityInfo.CONFIG_ORIENTATION
+        | ActivityInfo.CONFIG_SCREEN_SIZE
+        | ActivityInfo.CONFIG_SMALLEST_SCREEN_SIZE
+        | ActivityInfo.CONFIG_SCREEN_LAYOUT
+        | ActivityInfo.CONFIG_DENSITY
+        | ActivityInfo.CONFIG_LOCALE
+        | ActivityInfo.CONFIG_LAYOUT_DIRECTION;
+    
+    // Single-character strings for the common case, so committing a key doesn't allocate
+    private static final String[] ASCII_KEY_STRINGS = new String[128];
+    static {
+        for (int i = 0; i < ASCII_KEY_STRINGS.length; i++) {
+            ASCII_KEY_STRINGS[i] = String.valueOf((char) i);
+        }
+    }
     
     // Keyboard components
     private KeyboardView keyboardView;
+    
+    // Parsed on first use and kept across input view recreation
     private Keyboard qwertyKeyboard;
     private Keyboard numbersKeyboard;
     private Keyboard symbolsKeyboard;
+    private Configuration layoutConfiguration;
     
     // Suggestion components
     private RecyclerView suggestionRecyclerView;
@@ -60,24 +165,82 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     private LinearLayout suggestionContainer;
     private View loadingIndicator;
     
+    // Suggestion strip state, applied together once per frame
+    private FrameDispatcher uiDispatcher;
+    private List<MessageSuggestion> pendingSuggestions; // Null when the adapter is up to date
+    private final SuggestionStrip<MessageSuggestion> boundStrip = new SuggestionStrip<>(SUGGESTION_ATTRIBUTES);
+    private boolean pendingClear = false;
+    private boolean loadingVisible = false;
+    private boolean pendingTimeToSuggestion = false;
+    
     // State management
-    private boolean isShiftPressed = false;
-    private boolean isCapsLockOn = false;
+    private final ShiftState shiftState = new ShiftState();
     private boolean isNumbersMode = false;
     private boolean isSymbolsMode = false;
     private boolean isSuggestionsEnabled = true;
-    private boolean isAnalyzing = false;
+    
+    // Editor state
+    private boolean useComposingRegion = false;
+    private final StringBuilder composingWord = new StringBuilder(32);
+    private int selectionStart = -1;
+    private int selectionEnd = -1;
     
     // Text analysis
     private String currentContext = "";
+    private TextContextBuffer contextBuffer = new TextContextBuffer(AppProfile.DISABLED.getContextWindowChars());
     private List<MessageSuggestion> currentSuggestions = new ArrayList<>();
+    private final SuggestionPool<MessageSuggestion> suggestionPool = new SuggestionPool<>(
+        MAX_STRIP_SUGGESTIONS, MAX_SUGGESTIONS_PER_TONE, SUGGESTION_ATTRIBUTES);
     private Handler analysisHandler = new Handler(Looper.getMainLooper());
-    private Runnable analysisRunnable;
-    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final TypingCadence typingCadence = new TypingCadence();
+    private final PriorityTaskScheduler scheduler = new PriorityTaskScheduler(WORKER_THREADS, WORK_QUEUE_CAPACITY,
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CoachingWorker");
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    private AnalysisPipeline<MessageSuggestion> analysisPipeline; // Debounce, cancellation and backend health
+    private SuggestionCache<List<MessageSuggestion>> suggestionCache;
+    private PersistentSuggestionStore persistentSuggestions; // Null if the store couldn't be opened
+    
+    // Prefetch
+    private Future<?> prefetchRequest;
+    private long inputSession = 0; // Bumped for every new input view
+    private long prefetchKey = 0;
+    private String prefetchPlatform;
+    
+    // Client-side copy of the server's limits; wall-clock times so it survives restarts
+    private final RequestQuota requestQuota = new RequestQuota(DEFAULT_TIER, System.currentTimeMillis());
+    
+    // App profile, resolved once per input session
+    private String currentPlatform = AppProfile.DISABLED.getPlatform();
+    private AppProfile appProfile = AppProfile.DISABLED;
+    
+    // Instrumentation
+    private final KeyboardMetrics metrics = new KeyboardMetrics();
+    private long lastKeystrokeNanos = 0;
+    private long showStartNanos = 0;
+    private final ViewTreeObserver.OnPreDrawListener firstFrameListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            keyboardView.getViewTreeObserver().removeOnPreDrawListener(this);
+            if (showStartNanos != 0) {
+                metrics.firstFrame.recordSince(showStartNanos);
+                showStartNanos = 0;
+            }
+            return true;
+        }
+    };
     
     // Services
     private AICoachingService aiCoachingService;
-    private AppDetector appDetector;
+    private CoachingHttpClient httpClient;
+    private StreamingAnalysisClient analysisClient;
+    private LocalSuggestionEngine localSuggestionEngine;
+    private UsageTelemetryQueue usageTelemetry;
     private HapticFeedbackHelper hapticHelper;
     private SharedPreferences preferences;
     
@@ -88,8 +251,18 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         loadPreferences();
     }
     
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Decide before super, which recreates the input view against the new configuration
+        if (layoutConfiguration != null && (layoutConfiguration.diff(newConfig) & LAYOUT_CONFIG_CHANGES) != 0) {
+            invalidateKeyboardLayouts();
+        }
+        super.onConfigurationChanged(newConfig);
+    }
+    
     @Override
     public View onCreateInputView() {
+        showStartNanos = System.nanoTime();
         View inputView = LayoutInflater.from(this).inflate(R.layout.keyboard_layout, null);
         setupKeyboardView(inputView);
         setupSuggestionView(inputView);
@@ -99,28 +272,268 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     @Override
     public void onStartInputView(EditorInfo info, boolean restarting) {
         super.onStartInputView(info, restarting);
+        inputSession++;
+        detectCurrentApp(info);
+        refreshSubscriptionTier();
+        contextBuffer.reset(info.initialSelEnd);
+        composingWord.setLength(0);
+        selectionStart = info.initialSelStart;
+        selectionEnd = info.initialSelEnd;
+        useComposingRegion = supportsComposingRegion(info);
+        
+        if (showStartNanos == 0) {
+            showStartNanos = System.nanoTime();
+        }
+        keyboardView.getViewTreeObserver().removeOnPreDrawListener(firstFrameListener);
+        keyboardView.getViewTreeObserver().addOnPreDrawListener(firstFrameListener);
+        
         updateKeyboardForInputType(info);
-        detectCurrentApp();
         clearSuggestions();
+        prefetchSuggestions();
+        
+        // No prefetch went out: connect now, while the user is still reading the chat
+        if (prefetchRequest == null && appProfile.isAnalysisEnabled() && httpClient.hasAccessToken()) {
+            httpClient.warmUp();
+        }
     }
     
     @Override
     public void onFinishInputView(boolean finishingInput) {
         super.onFinishInputView(finishingInput);
-        cancelPendingAnalysis();
+        
+        InputConnection ic = getCurrentInputConnection();
+        if (ic != null) {
+            finishComposing(ic);
+        }
+        
+        analysisPipeline.cancelPendingAnalysis();
+        analysisPipeline.cancelInFlightRequest();
+        cancelPrefetch();
+        saveTypingCadence();
+        saveRequestQuota();
+        httpClient.closeIdleConnections();
+        
+        if (usageTelemetry != null) {
+            usageTelemetry.requestFlush();
+        }
+        
+        // Periodic summary for field regressions; the dump() has the live view
+        if (metrics.getWindowMillis() >= METRICS_SUMMARY_INTERVAL_MS) {
+            Log.i(TAG, "metrics " + metrics.getSummary());
+            metrics.reset();
+        }
+    }
+    
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            suggestionCache.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            suggestionCache.trimToSize(SUGGESTION_CACHE_MAX_BYTES / 2);
+        }
+    }
+    
+    @Override
+    public void onUpdateSelection(int oldSelStart, int oldSelEnd, int newSelStart, int newSelEnd,
+                                  int candidatesStart, int candidatesEnd) {
+        super.onUpdateSelection(oldSelStart, oldSelEnd, newSelStart, newSelEnd, candidatesStart, candidatesEnd);
+        
+        // Our own edits land exactly where the buffer expects; anything else is a cursor jump
+        contextBuffer.onSelectionChanged(newSelStart, newSelEnd);
+        selectionStart = newSelStart;
+        selectionEnd = newSelEnd;
+        
+        // The cursor left the word being composed, so the editor now owns it
+        if (composingWord.length() > 0 && (newSelStart != newSelEnd || newSelEnd != candidatesEnd)) {
+            InputConnection ic = getCurrentInputConnection();
+            if (ic != null) {
+                ic.finishComposingText();
+            }
+            composingWord.setLength(0);
+        }
     }
     
     // MARK: - Initialization
     private void initializeServices() {
         aiCoachingService = new AICoachingService(this);
-        appDetector = new AppDetector(this);
+        httpClient = CoachingHttpClient.getInstance(this);
+        analysisClient = new StreamingAnalysisClient(httpClient);
+        httpClient.setRateLimitListener(new CoachingHttpClient.RateLimitListener() {
+            @Override
+            public void onRateLimits(long remaining, long resetAtMs) {
+                requestQuota.onServerLimits(remaining, resetAtMs, System.currentTimeMillis());
+            }
+            
+            @Override
+            public void onRateLimited(long retryAfterMs) {
+                requestQuota.onRateLimited(retryAfterMs, System.currentTimeMillis());
+                
+                // Keep the block if the process dies before the input view closes
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        saveRequestQuota();
+                    }
+                });
+            }
+        });
+        localSuggestionEngine = new LocalSuggestionEngine(this);
+        usageTelemetry = createUsageTelemetry();
         hapticHelper = new HapticFeedbackHelper(this);
-        preferences = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        preferences = getSharedPreferences(KeyboardPreferences.NAME, Context.MODE_PRIVATE);
+        analysisPipeline = new AnalysisPipeline<>(createAnalysisHost(), requestQuota, typingCadence, metrics);
+        uiDispatcher = new FrameDispatcher(this, new FrameDispatcher.FrameListener() {
+            @Override
+            public void onFrame(int skippedFrames) {
+                metrics.countStripFrame(skippedFrames);
+                applyStripState();
+            }
+        });
+        
+        suggestionCache = new SuggestionCache<>(
+            SUGGESTION_CACHE_MAX_BYTES,
+            SUGGESTION_CACHE_TTL_MS,
+            new SuggestionCache.Weigher<List<MessageSuggestion>>() {
+                @Override
+                public int weigh(List<MessageSuggestion> suggestions) {
+                    int bytes = 0;
+                    for (MessageSuggestion suggestion : suggestions) {
+                        bytes += SUGGESTION_OVERHEAD_BYTES
+                            + 2 * suggestion.getText().length()
+                            + 2 * suggestion.getReasoning().length();
+                    }
+                    return bytes;
+                }
+            }
+        );
+        
+        persistentSuggestions = PersistentSuggestionStore.getInstance(this);
+        
+        // Parse the bundled phrase table before the first analysis needs it
+        scheduler.submit(PriorityTaskScheduler.Priority.PREFETCH, null, new Runnable() {
+            @Override
+            public void run() {
+                localSuggestionEngine.load();
+            }
+        });
+    }
+    
+    private UsageTelemetryQueue createUsageTelemetry() {
+        try {
+            return new UsageTelemetryQueue(new File(getFilesDir(), "telemetry"), new UsageTelemetryQueue.Uploader() {
+                @Override
+                public boolean upload(final List<UsageEventLog.Event> batch) {
+                    if (!isNetworkAvailable()) return false;
+                    
+                    // Uploads share the coaching workers at the lowest priority
+                    Future<Boolean> upload = scheduler.submit(PriorityTaskScheduler.Priority.TELEMETRY,
+                        TASK_TELEMETRY_UPLOAD, new Callable<Boolean>() {
+                            @Override
+                            public Boolean call() throws IOException, JSONException {
+                                return uploadUsageBatch(batch);
+                            }
+                        });
+                    
+                    try {
+                        return upload.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    } catch (CancellationException | ExecutionException e) {
+                        // Dropped under load or failed; the batch stays queued for the next flush
+                        return false;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            // Fall back to tracking each suggestion directly
+            return null;
+        }
+    }
+    
+    /**
+     * One gzipped request for the whole batch. Only a 2xx acknowledges it;
+     * anything else leaves it queued for the next flush. Signed out, nothing
+     * is sent: the function would only refuse it.
+     */
+    private boolean uploadUsageBatch(List<UsageEventLog.Event> batch) throws IOException, JSONException {
+        if (!httpClient.hasAccessToken()) return false;
+        
+        Request request = httpClient.newRequest(UsageEventJson.ENDPOINT)
+            .header("Content-Encoding", "gzip")
+            .post(CoachingHttpClient.gzip(UsageEventJson.CONTENT_TYPE, UsageEventJson.write(batch)))
+            .build();
+        
+        Response response = httpClient.getClient().newCall(request).execute();
+        try {
+            return response.isSuccessful();
+        } finally {
+            response.close();
+        }
+    }
+    
+    private boolean isNetworkAvailable() {
+        ConnectivityManager connectivityManager =
+            (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connectivityManager != null ? connectivityManager.getActiveNetworkInfo() : null;
+        return networkInfo != null && networkInfo.isConnected();
     }
     
     private void loadPreferences() {
         isSuggestionsEnabled = preferences.getBoolean(PREF_SUGGESTIONS_ENABLED, true);
         hapticHelper.setEnabled(preferences.getBoolean(PREF_HAPTIC_ENABLED, true));
+        analysisPipeline.setHedgingEnabled(preferences.getBoolean(PREF_HEDGE_REQUESTS, false));
+        typingCadence.restore(
+            preferences.getFloat(PREF_TYPING_GAP_MEAN, (float) TypingCadence.DEFAULT_MEAN_GAP_MS),
+            preferences.getFloat(PREF_TYPING_GAP_VARIANCE, (float) TypingCadence.DEFAULT_GAP_VARIANCE)
+        );
+        
+        // The app updates the live client on every refresh; this covers a restarted process
+        httpClient.setAccessToken(preferences.getString(KeyboardPreferences.ACCESS_TOKEN, null));
+        
+        long nowMs = System.currentTimeMillis();
+        refreshSubscriptionTier();
+        if (preferences.contains(PREF_QUOTA_REFILLED_AT)) {
+            requestQuota.restore(
+                preferences.getFloat(PREF_QUOTA_TOKENS, 0f),
+                preferences.getLong(PREF_QUOTA_REFILLED_AT, nowMs),
+                preferences.getLong(PREF_QUOTA_PERIOD_REMAINING, RequestQuota.UNKNOWN),
+                preferences.getLong(PREF_QUOTA_PERIOD_RESET_AT, 0),
+                preferences.getLong(PREF_QUOTA_BLOCKED_UNTIL, 0),
+                nowMs
+            );
+        }
+    }
+    
+    private void saveTypingCadence() {
+        typingCadence.resetSession();
+        preferences.edit()
+            .putFloat(PREF_TYPING_GAP_MEAN, (float) typingCadence.getMeanGapMs())
+            .putFloat(PREF_TYPING_GAP_VARIANCE, (float) typingCadence.getGapVariance())
+            .apply();
+    }
+    
+    /**
+     * The app writes the tier on sign-in and on plan changes; read it once per
+     * input session.
+     */
+    private void refreshSubscriptionTier() {
+        RequestQuota.Tier tier = RequestQuota.Tier.fromId(
+            preferences.getString(KeyboardPreferences.SUBSCRIPTION_TIER, null), DEFAULT_TIER);
+        requestQuota.setTier(tier, System.currentTimeMillis());
+    }
+    
+    private void saveRequestQuota() {
+        preferences.edit()
+            .putFloat(PREF_QUOTA_TOKENS, (float) requestQuota.getTokens())
+            .putLong(PREF_QUOTA_REFILLED_AT, requestQuota.getLastRefillMs())
+            .putLong(PREF_QUOTA_PERIOD_REMAINING, requestQuota.getPeriodRemaining())
+            .putLong(PREF_QUOTA_PERIOD_RESET_AT, requestQuota.getPeriodResetAtMs())
+            .putLong(PREF_QUOTA_BLOCKED_UNTIL, requestQuota.getBlockedUntilMs())
+            .apply();
     }
     
     private void setupKeyboardView(View inputView) {
@@ -128,13 +541,51 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         keyboardView.setOnKeyboardActionListener(this);
         keyboardView.setPreviewEnabled(false);
         
-        // Initialize keyboards
-        qwertyKeyboard = new Keyboard(this, R.xml.keyboard_qwerty);
-        numbersKeyboard = new Keyboard(this, R.xml.keyboard_numbers);
-        symbolsKeyboard = new Keyboard(this, R.xml.keyboard_symbols);
-        
-        // Set default keyboard
-        keyboardView.setKeyboard(qwertyKeyboard);
+        // Keep the current mode when the view is recreated; only that layout gets parsed
+        if (isSymbolsMode) {
+            keyboardView.setKeyboard(getSymbolsKeyboard());
+        } else if (isNumbersMode) {
+            keyboardView.setKeyboard(getNumbersKeyboard());
+        } else {
+            keyboardView.setKeyboard(getQwertyKeyboard());
+        }
+    }
+    
+    private Keyboard getQwertyKeyboard() {
+        if (qwertyKeyboard == null) {
+            qwertyKeyboard = new Keyboard(this, R.xml.keyboard_qwerty);
+            rememberLayoutConfiguration();
+        }
+        return qwertyKeyboard;
+    }
+    
+    private Keyboard getNumbersKeyboard() {
+        if (numbersKeyboard == null) {
+            numbersKeyboard = new Keyboard(this, R.xml.keyboard_numbers);
+            rememberLayoutConfiguration();
+        }
+        return numbersKeyboard;
+    }
+    
+    private Keyboard getSymbolsKeyboard() {
+        if (symbolsKeyboard == null) {
+            symbolsKeyboard = new Keyboard(this, R.xml.keyboard_symbols);
+            rememberLayoutConfiguration();
+        }
+        return symbolsKeyboard;
+    }
+    
+    private void rememberLayoutConfiguration() {
+        if (layoutConfiguration == null) {
+            layoutConfiguration = new Configuration(getResources().getConfiguration());
+        }
+    }
+    
+    private void invalidateKeyboardLayouts() {
+        qwertyKeyboard = null;
+        numbersKeyboard = null;
+        symbolsKeyboard = null;
+        layoutConfiguration = null;
     }
     
     private void setupSuggestionView(View inputView) {
@@ -160,9 +611,12 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         });
         
         suggestionRecyclerView.setAdapter(suggestionAdapter);
+        boundStrip.clear();
         
-        // Initially hide suggestions
-        updateSuggestionVisibility();
+        // Initially hide suggestions; the view isn't attached yet, so apply right away
+        pendingSuggestions = null;
+        pendingClear = false;
+        applyStripState();
     }
     
     // MARK: - Keyboard Management
@@ -171,15 +625,15 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         
         switch (inputType) {
             case EditorInfo.TYPE_CLASS_NUMBER:
-                keyboardView.setKeyboard(numbersKeyboard);
+                keyboardView.setKeyboard(getNumbersKeyboard());
                 isNumbersMode = true;
                 break;
             case EditorInfo.TYPE_CLASS_PHONE:
-                keyboardView.setKeyboard(numbersKeyboard);
+                keyboardView.setKeyboard(getNumbersKeyboard());
                 isNumbersMode = true;
                 break;
             default:
-                keyboardView.setKeyboard(qwertyKeyboard);
+                keyboardView.setKeyboard(getQwertyKeyboard());
                 isNumbersMode = false;
                 isSymbolsMode = false;
                 break;
@@ -197,19 +651,19 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     }
     
     private void switchToQwertyKeyboard() {
-        keyboardView.setKeyboard(qwertyKeyboard);
+        keyboardView.setKeyboard(getQwertyKeyboard());
         isNumbersMode = false;
         isSymbolsMode = false;
     }
     
     private void switchToNumbersKeyboard() {
-        keyboardView.setKeyboard(numbersKeyboard);
+        keyboardView.setKeyboard(getNumbersKeyboard());
         isNumbersMode = true;
         isSymbolsMode = false;
     }
     
     private void switchToSymbolsKeyboard() {
-        keyboardView.setKeyboard(symbolsKeyboard);
+        keyboardView.setKeyboard(getSymbolsKeyboard());
         isNumbersMode = false;
         isSymbolsMode = true;
     }
@@ -220,11 +674,15 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         InputConnection ic = getCurrentInputConnection();
         if (ic == null) return;
         
+        long keyStartNanos = System.nanoTime();
+        lastKeystrokeNanos = keyStartNanos;
         hapticHelper.performHapticFeedback();
+        typingCadence.recordKeystroke(SystemClock.uptimeMillis());
         
         switch (primaryCode) {
             case Keyboard.KEYCODE_DELETE:
                 handleDeleteKey(ic);
+                scheduleTextAnalysis(false);
                 break;
             case Keyboard.KEYCODE_SHIFT:
                 handleShiftKey();
@@ -249,11 +707,11 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
                 break;
             default:
                 handleCharacterKey(ic, primaryCode);
+                scheduleTextAnalysis(TypingCadence.isSentenceEnd((char) primaryCode));
                 break;
         }
         
-        // Trigger text analysis after key press
-        scheduleTextAnalysis();
+        metrics.keyHandling.recordSince(keyStartNanos);
     }
     
     @Override
@@ -270,7 +728,11 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     public void onText(CharSequence text) {
         InputConnection ic = getCurrentInputConnection();
         if (ic != null) {
+            ic.beginBatchEdit();
+            finishComposing(ic);
             ic.commitText(text, 1);
+            ic.endBatchEdit();
+            contextBuffer.append(text);
         }
     }
     
@@ -296,47 +758,58 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     
     // MARK: - Key Handling Methods
     private void handleDeleteKey(InputConnection ic) {
-        CharSequence selectedText = ic.getSelectedText(0);
-        if (TextUtils.isEmpty(selectedText)) {
-            ic.deleteSurroundingText(1, 0);
-        } else {
+        if (composingWord.length() > 0) {
+            // An empty composing text removes the composing region
+            composingWord.setLength(composingWord.length() - 1);
+            ic.setComposingText(composingWord, 1);
+            contextBuffer.deleteBeforeCursor(1);
+        } else if (selectionStart != selectionEnd) {
             ic.commitText("", 1);
+            contextBuffer.invalidate();
+        } else {
+            ic.deleteSurroundingText(1, 0);
+            contextBuffer.deleteBeforeCursor(1);
         }
     }
     
     private void handleShiftKey() {
-        if (isShiftPressed) {
-            // Double tap for caps lock
-            isCapsLockOn = !isCapsLockOn;
-            isShiftPressed = false;
-        } else {
-            isShiftPressed = true;
-        }
-        
+        shiftState.onShiftKey();
         updateKeyboardShiftState();
     }
     
     private void handleDoneKey(InputConnection ic) {
+        finishComposing(ic);
+        
         EditorInfo ei = getCurrentInputEditorInfo();
         if (ei != null) {
             int imeAction = ei.imeOptions & EditorInfo.IME_MASK_ACTION;
             
             switch (imeAction) {
                 case EditorInfo.IME_ACTION_SEND:
+                    // Nothing computed for the draft is worth showing once it's gone
+                    analysisPipeline.cancelPendingAnalysis();
+                    analysisPipeline.cancelInFlightRequest();
+                    cancelPrefetch();
+                    clearSuggestions();
                     ic.performEditorAction(EditorInfo.IME_ACTION_SEND);
+                    contextBuffer.invalidate();
                     break;
                 case EditorInfo.IME_ACTION_SEARCH:
                     ic.performEditorAction(EditorInfo.IME_ACTION_SEARCH);
+                    contextBuffer.invalidate();
                     break;
                 case EditorInfo.IME_ACTION_GO:
                     ic.performEditorAction(EditorInfo.IME_ACTION_GO);
+                    contextBuffer.invalidate();
                     break;
                 default:
                     ic.commitText("\\n", 1);
+                    contextBuffer.append("\\n");
                     break;
             }
         } else {
             ic.commitText("\\n", 1);
+            contextBuffer.append("\\n");
         }
     }
     
@@ -349,153 +822,479 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     }
     
     private void handleCharacterKey(InputConnection ic, int primaryCode) {
-        char code = (char) primaryCode;
+        boolean wasShifted = shiftState.isShifted();
+        char code = shiftState.apply((char) primaryCode);
         
-        if (Character.isLetter(code)) {
-            if (isShiftPressed || isCapsLockOn) {
-                code = Character.toUpperCase(code);
-            } else {
-                code = Character.toLowerCase(code);
-            }
-            
-            // Reset shift after use (unless caps lock is on)
-            if (isShiftPressed && !isCapsLockOn) {
-                isShiftPressed = false;
-                updateKeyboardShiftState();
-            }
+        if (wasShifted != shiftState.isShifted()) {
+            updateKeyboardShiftState();
+        }
+        
+        if (useComposingRegion && isWordCharacter(code)) {
+            // Keep the current word as composing text and commit it at the next word boundary
+            composingWord.append(code);
+            ic.setComposingText(composingWord, 1);
+        } else if (composingWord.length() > 0) {
+            ic.beginBatchEdit();
+            finishComposing(ic);
+            ic.commitText(keyString(code), 1);
+            ic.endBatchEdit();
+        } else {
+            ic.commitText(keyString(code), 1);
+        }
+        contextBuffer.append(code);
+    }
+    
+    private void finishComposing(InputConnection ic) {
+        if (composingWord.length() > 0) {
+            ic.finishComposingText();
+            composingWord.setLength(0);
         }
+    }
+    
+    private boolean supportsComposingRegion(EditorInfo info) {
+        if ((info.inputType & EditorInfo.TYPE_MASK_CLASS) != EditorInfo.TYPE_CLASS_TEXT) return false;
         
-        ic.commitText(String.valueOf(code), 1);
+        // Password fields shouldn't show a composing underline
+        int variation = info.inputType & EditorInfo.TYPE_MASK_VARIATION;
+        return variation != EditorInfo.TYPE_TEXT_VARIATION_PASSWORD
+            && variation != EditorInfo.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD
+            && variation != EditorInfo.TYPE_TEXT_VARIATION_WEB_PASSWORD;
+    }
+    
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    }
+    
+    private static String keyString(char c) {
+        return c < ASCII_KEY_STRINGS.length ? ASCII_KEY_STRINGS[c] : String.valueOf(c);
     }
     
     private void updateKeyboardShiftState() {
         // Update keyboard visual state for shift/caps lock
-        keyboardView.setShifted(isShiftPressed || isCapsLockOn);
+        keyboardView.setShifted(shiftState.isShifted());
     }
     
     // MARK: - Text Analysis
-    private void scheduleTextAnalysis() {
-        if (!isSuggestionsEnabled || isAnalyzing) return;
-        
-        // Cancel previous analysis
-        cancelPendingAnalysis();
-        
-        // Schedule new analysis
-        analysisRunnable = new Runnable() {
+    // Only called for keys that change the text; shift and layout keys never trigger analysis
+    private void scheduleTextAnalysis(boolean sentenceEnded) {
+        if (!isSuggestionsEnabled) return;
+        analysisPipeline.scheduleAnalysis(sentenceEnded);
+    }
+    
+    private AnalysisPipeline.Host<MessageSuggestion> createAnalysisHost() {
+        return new AnalysisPipeline.Host<MessageSuggestion>() {
             @Override
-            public void run() {
+            public long uptimeMillis() {
+                return SystemClock.elapsedRealtime();
+            }
+            
+            @Override
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+            
+            @Override
+            public void postDelayed(Runnable runnable, long delayMs) {
+                analysisHandler.postDelayed(runnable, delayMs);
+            }
+            
+            @Override
+            public void removeCallbacks(Runnable runnable) {
+                analysisHandler.removeCallbacks(runnable);
+            }
+            
+            @Override
+            public void onAnalysisDue() {
                 performTextAnalysis();
             }
+            
+            @Override
+            public AnalysisPipeline.Call startAttempt(AnalysisPipeline.Request<MessageSuggestion> request, int attempt) {
+                return request.isMoreSuggestions()
+                    ? startMoreSuggestions(request)
+                    : startAnalysisAttempt(request, attempt);
+            }
+            
+            @Override
+            public void onAnalysisPartial(MessageSuggestion suggestion, boolean first) {
+                handleAnalysisPartial(suggestion, first);
+            }
+            
+            @Override
+            public void onAnalysisResult(AnalysisPipeline.Request<MessageSuggestion> request,
+                                         List<MessageSuggestion> suggestions) {
+                if (request.isMoreSuggestions()) {
+                    handleMoreSuggestionsSuccess(suggestions);
+                } else {
+                    handleAnalysisSuccess(suggestions);
+                }
+            }
+            
+            @Override
+            public void onAnalysisFailed(AnalysisPipeline.Request<MessageSuggestion> request) {
+                hideLoadingState();
+                showFallbackSuggestions();
+            }
+            
+            @Override
+            public void onAnalysisSlow(AnalysisPipeline.Request<MessageSuggestion> request) {
+                // Swap the spinner for on-device suggestions; cloud results still replace them
+                hideLoadingState();
+                if (!request.isMoreSuggestions()) {
+                    showFallbackSuggestions();
+                }
+            }
+            
+            @Override
+            public void onAnalysisCancelled() {
+                hideLoadingState();
+            }
         };
-        
-        analysisHandler.postDelayed(analysisRunnable, ANALYSIS_DELAY_MS);
-    }
-    
-    private void cancelPendingAnalysis() {
-        if (analysisRunnable != null) {
-            analysisHandler.removeCallbacks(analysisRunnable);
-            analysisRunnable = null;
-        }
     }
     
     private void performTextAnalysis() {
         InputConnection ic = getCurrentInputConnection();
         if (ic == null) return;
         
-        // Get current text context
-        CharSequence beforeCursor = ic.getTextBeforeCursor(200, 0);
-        CharSequence afterCursor = ic.getTextAfterCursor(50, 0);
+        // Only go back to the editor when the cursor jumped or the editor changed
+        if (contextBuffer.isStale()) {
+            long readStartNanos = System.nanoTime();
+            contextBuffer.resync(ic.getTextBeforeCursor(contextBuffer.capacity(), 0));
+            metrics.contextRead.recordSince(readStartNanos);
+        }
         
-        if (beforeCursor == null) beforeCursor = "";
-        if (afterCursor == null) afterCursor = "";
+        // Check if we have enough context for analysis
+        if (!shouldAnalyzeContext()) {
+            // Prefetched suggestions stay up until the user changes the draft
+            if (!showPrefetchedSuggestions()) {
+                clearSuggestions();
+            }
+            return;
+        }
         
-        currentContext = beforeCursor.toString();
+        currentContext = contextBuffer.toString();
+        final String context = currentContext;
+        final String platform = currentPlatform;
+        final long cacheKey = SuggestionCache.keyForContext(context, platform);
         
-        // Check if we have enough context for analysis
-        if (!shouldAnalyzeContext(currentContext)) {
-            clearSuggestions();
+        // Near-repeats of a recent context are served without a network round-trip
+        List<MessageSuggestion> cached = getCachedSuggestions(cacheKey);
+        if (cached != null) {
+            metrics.countCacheHit();
+            currentSuggestions = new ArrayList<>(cached);
+            renderSuggestions(currentSuggestions);
             return;
         }
+        metrics.countCacheMiss();
         
-        // Perform AI analysis
-        isAnalyzing = true;
-        showLoadingState();
+        // Signed out, backend failing, over quota or typing faster than the tier allows: stay on-device
+        if (!httpClient.hasAccessToken() || !analysisPipeline.requestAnalysis(context, platform, cacheKey)) {
+            showFallbackSuggestions();
+            return;
+        }
         
-        executorService.execute(new Runnable() {
+        // Show on-device suggestions right away; cloud results replace them when they land
+        List<MessageSuggestion> instantSuggestions = localSuggestionEngine.suggest(context, INSTANT_SUGGESTION_COUNT);
+        if (instantSuggestions.isEmpty()) {
+            showLoadingState();
+        } else {
+            currentSuggestions = instantSuggestions;
+            updateSuggestions(currentSuggestions);
+        }
+    }
+    
+    private boolean shouldAnalyzeContext() {
+        return contextBuffer.getWordCount() >= appProfile.getMinWordsForAnalysis();
+    }
+    
+    private AnalysisPipeline.Call startAnalysisAttempt(final AnalysisPipeline.Request<MessageSuggestion> request,
+                                                       final int attempt) {
+        final long submittedNanos = System.nanoTime();
+        String mergeKey = attempt == 0 ? TASK_ANALYSIS : TASK_ANALYSIS_HEDGE;
+        return asCall(scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, mergeKey, new Runnable() {
             @Override
             public void run() {
-                analyzeConversationContext();
+                metrics.queueWait.recordSince(submittedNanos);
+                analyzeConversationContext(request, attempt);
             }
-        });
+        }));
     }
     
-    private boolean shouldAnalyzeContext(String context) {
-        if (TextUtils.isEmpty(context)) return false;
-        
-        String[] words = context.trim().split("\\\\s+");
-        return words.length >= MIN_WORDS_FOR_ANALYSIS;
-    }
-    
-    private void analyzeConversationContext() {
-        String platform = appDetector.getCurrentDatingApp();
-        
-        aiCoachingService.analyzeConversation(currentContext, platform, new AICoachingService.AnalysisCallback() {
+    private void analyzeConversationContext(final AnalysisPipeline.Request<MessageSuggestion> request,
+                                            final int attempt) {
+        final long networkStartNanos = System.nanoTime();
+        RequestQuota.Tier tier = requestQuota.getTier();
+        analysisClient.analyzeConversation(request.getContext(), request.getPlatform(), tier, new StreamingAnalysisCallback() {
+            @Override
+            public void onPartial(MessageSuggestion suggestion) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        analysisPipeline.onAttemptPartial(request, attempt, suggestion);
+                    }
+                });
+            }
+            
             @Override
             public void onSuccess(List<MessageSuggestion> suggestions) {
+                metrics.network.recordSince(networkStartNanos);
                 runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
-                        handleAnalysisSuccess(suggestions);
+                        // Stale results are still valid for their own context
+                        cacheSuggestions(request.getCacheKey(), suggestions);
+                        analysisPipeline.onAttemptSuccess(request, attempt, suggestions);
                     }
                 });
             }
             
             @Override
             public void onError(String error) {
+                metrics.network.recordSince(networkStartNanos);
                 runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
-                        handleAnalysisError(error);
+                        analysisPipeline.onAttemptError(request, attempt);
                     }
                 });
             }
         });
     }
     
+    // Interrupts the worker thread so a blocking request can bail out early
+    private static AnalysisPipeline.Call asCall(final Future<?> future) {
+        return new AnalysisPipeline.Call() {
+            @Override
+            public boolean cancel() {
+                return future.cancel(true);
+            }
+            
+            @Override
+            public boolean isCancelled() {
+                return future.isCancelled();
+            }
+        };
+    }
+    
+    private void handleAnalysisPartial(MessageSuggestion suggestion, boolean first) {
+        // The first streamed suggestion replaces the spinner or the instant-tier suggestions
+        if (first) {
+            hideLoadingState();
+            currentSuggestions = new ArrayList<>();
+        }
+        
+        currentSuggestions.add(suggestion);
+        updateSuggestions(currentSuggestions);
+    }
+    
     private void handleAnalysisSuccess(List<MessageSuggestion> suggestions) {
-        isAnalyzing = false;
         hideLoadingState();
         
-        currentSuggestions = suggestions;
-        updateSuggestions(suggestions);
+        currentSuggestions = new ArrayList<>(suggestions);
+        renderSuggestions(currentSuggestions);
         
         // Provide haptic feedback for new suggestions
         hapticHelper.performSuggestionFeedback();
     }
     
-    private void handleAnalysisError(String error) {
-        isAnalyzing = false;
-        hideLoadingState();
+    // MARK: - Prefetch
+    /**
+     * Ask for suggestions as soon as a chat field opens in a dating app, so they
+     * are cached before the user has typed enough for a regular analysis. The
+     * request also opens the connection the first typed request will reuse.
+     */
+    private void prefetchSuggestions() {
+        cancelPrefetch();
+        if (!isSuggestionsEnabled || !useComposingRegion || !appProfile.isPrefetchEnabled()) return;
+        
+        final String platform = currentPlatform;
+        
+        InputConnection ic = getCurrentInputConnection();
+        if (ic == null) return;
+        
+        // Usually empty; holds the draft when the user comes back to a chat
+        long readStartNanos = System.nanoTime();
+        contextBuffer.resync(ic.getTextBeforeCursor(contextBuffer.capacity(), 0));
+        metrics.contextRead.recordSince(readStartNanos);
+        
+        final String context = contextBuffer.toString();
+        final long cacheKey = SuggestionCache.keyForContext(context, platform);
+        prefetchKey = cacheKey;
+        prefetchPlatform = platform;
+        
+        if (getCachedSuggestions(cacheKey) != null) {
+            showPrefetchedSuggestions();
+            return;
+        }
+        
+        // Speculative: never the breaker's probe, and not worth quota it can't spare
+        if (!httpClient.hasAccessToken() || !analysisPipeline.admitSpeculativeRequest()) return;
+        
+        final long session = inputSession;
+        prefetchRequest = scheduler.submit(PriorityTaskScheduler.Priority.PREFETCH, TASK_PREFETCH, new Runnable() {
+            @Override
+            public void run() {
+                analysisClient.analyzeConversation(context, platform, requestQuota.getTier(), new StreamingAnalysisCallback() {
+                    @Override
+                    public void onPartial(MessageSuggestion suggestion) {
+                        // Nothing is on screen to stream into; the whole list is cached below
+                    }
+                    
+                    @Override
+                    public void onSuccess(List<MessageSuggestion> suggestions) {
+                        runOnUiThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                cacheSuggestions(cacheKey, suggestions);
+                                
+                                // Don't replace anything the user already has on screen
+                                if (session == inputSession && !analysisPipeline.isAnalyzing() && currentSuggestions.isEmpty()) {
+                                    showPrefetchedSuggestions();
+                                }
+                            }
+                        });
+                    }
+                    
+                    @Override
+                    public void onError(String error) {
+                        // Best effort; the regular analysis path still runs
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Show the prefetched suggestions if the text before the cursor is still what
+     * they were requested for.
+     */
+    private boolean showPrefetchedSuggestions() {
+        if (prefetchKey == 0 || SuggestionCache.keyForContext(contextBuffer.toString(), prefetchPlatform) != prefetchKey) {
+            return false;
+        }
+        
+        List<MessageSuggestion> prefetched = getCachedSuggestions(prefetchKey);
+        if (prefetched == null) return false;
         
-        // Show fallback suggestions
-        showFallbackSuggestions();
+        metrics.countCacheHit();
+        currentSuggestions = new ArrayList<>(prefetched);
+        updateSuggestions(currentSuggestions);
+        return true;
+    }
+    
+    private void cancelPrefetch() {
+        prefetchKey = 0;
+        if (prefetchRequest != null) {
+            prefetchRequest.cancel(true);
+            prefetchRequest = null;
+        }
+    }
+    
+    // MARK: - Suggestion Caching
+    /**
+     * Memory first, then the on-disk store, which still has results from before
+     * the process was last killed. Disk hits are promoted to memory.
+     */
+    private List<MessageSuggestion> getCachedSuggestions(long cacheKey) {
+        List<MessageSuggestion> cached = suggestionCache.get(cacheKey);
+        if (cached == null && persistentSuggestions != null) {
+            cached = persistentSuggestions.get(cacheKey);
+            if (cached != null) {
+                suggestionCache.put(cacheKey, cached, appProfile.getCacheTtlMs());
+            }
+        }
+        return cached;
+    }
+    
+    private void cacheSuggestions(final long cacheKey, List<MessageSuggestion> suggestions) {
+        final List<MessageSuggestion> copy = new ArrayList<>(suggestions);
+        suggestionCache.put(cacheKey, copy, appProfile.getCacheTtlMs());
+        
+        if (persistentSuggestions != null && !copy.isEmpty()) {
+            scheduler.submit(PriorityTaskScheduler.Priority.PREFETCH, null, new Runnable() {
+                @Override
+                public void run() {
+                    persistentSuggestions.put(cacheKey, copy);
+                }
+            });
+        }
     }
     
     // MARK: - Suggestion Management
     private void updateSuggestions(List<MessageSuggestion> suggestions) {
-        suggestionAdapter.updateSuggestions(suggestions);
-        updateSuggestionVisibility();
+        pendingSuggestions = suggestions;
+        pendingClear = false;
+        uiDispatcher.invalidate();
+    }
+    
+    // Analysis results for the current text; timed end to end from the last keystroke
+    private void renderSuggestions(List<MessageSuggestion> suggestions) {
+        updateSuggestions(suggestions);
+        pendingTimeToSuggestion = true;
     }
     
     private void clearSuggestions() {
         currentSuggestions.clear();
-        suggestionAdapter.clearSuggestions();
-        updateSuggestionVisibility();
+        pendingSuggestions = null;
+        pendingClear = true;
+        uiDispatcher.invalidate();
+    }
+    
+    /**
+     * Push the strip state collected since the last frame to the views in one pass.
+     */
+    private void applyStripState() {
+        if (suggestionAdapter == null) return;
+        
+        long renderStartNanos = System.nanoTime();
+        // Rebind only what would look different
+        boolean contentChanged = false;
+        if (pendingClear) {
+            contentChanged = boundStrip.clear();
+            if (contentChanged) {
+                suggestionAdapter.clearSuggestions();
+            }
+            pendingClear = false;
+        } else if (pendingSuggestions != null) {
+            contentChanged = boundStrip.bind(pendingSuggestions);
+            if (contentChanged) {
+                suggestionAdapter.updateSuggestions(pendingSuggestions);
+            }
+            pendingSuggestions = null;
+        }
+        
+        setVisibility(loadingIndicator, loadingVisible ? View.VISIBLE : View.GONE);
+        setVisibility(suggestionRecyclerView, loadingVisible ? View.GONE : View.VISIBLE);
+        boolean shouldShow = isSuggestionsEnabled && !currentSuggestions.isEmpty();
+        setVisibility(suggestionContainer, shouldShow ? View.VISIBLE : View.GONE);
+        
+        if (contentChanged) {
+            metrics.render.recordSince(renderStartNanos);
+        }
+        if (pendingTimeToSuggestion) {
+            pendingTimeToSuggestion = false;
+            if (lastKeystrokeNanos != 0) {
+                metrics.timeToSuggestion.recordSince(lastKeystrokeNanos);
+            }
+        }
+    }
+    
+    private static void setVisibility(View view, int visibility) {
+        if (view.getVisibility() != visibility) {
+            view.setVisibility(visibility);
+        }
     }
     
     private void showFallbackSuggestions() {
-        List<MessageSuggestion> fallbackSuggestions = new ArrayList<>();
+        List<MessageSuggestion> fallbackSuggestions =
+            localSuggestionEngine.suggest(currentContext, INSTANT_SUGGESTION_COUNT);
+        if (!fallbackSuggestions.isEmpty()) {
+            currentSuggestions = fallbackSuggestions;
+            updateSuggestions(currentSuggestions);
+            return;
+        }
         
+        // Phrase table not loaded yet
         fallbackSuggestions.add(new MessageSuggestion(
             "That sounds interesting! Tell me more.",
             SuggestionTone.CASUAL,
@@ -517,6 +1316,7 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
             "Thoughtful question that shows genuine interest"
         ));
         
+        currentSuggestions = fallbackSuggestions;
         updateSuggestions(fallbackSuggestions);
     }
     
@@ -525,10 +1325,24 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         if (ic == null) return;
         
         // Insert the suggestion text
+        ic.beginBatchEdit();
+        finishComposing(ic);
         ic.commitText(suggestion.getText(), 1);
+        ic.endBatchEdit();
+        contextBuffer.append(suggestion.getText());
         
         // Track usage
-        aiCoachingService.trackSuggestionUsage(suggestion, appDetector.getCurrentDatingApp());
+        if (usageTelemetry != null) {
+            usageTelemetry.record(new UsageEventLog.Event(
+                System.currentTimeMillis(),
+                BinarySuggestionReader.toWireOrdinal(suggestion.getTone()),
+                currentPlatform,
+                (float) suggestion.getEngagementPrediction(),
+                suggestion.getText()
+            ));
+        } else {
+            aiCoachingService.trackSuggestionUsage(suggestion, currentPlatform);
+        }
         
         // Provide haptic feedback
         hapticHelper.performSelectionFeedback();
@@ -538,25 +1352,31 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     }
     
     private void requestMoreSuggestions() {
-        if (isAnalyzing) return;
+        if (analysisPipeline.isAnalyzing()) return;
         
-        isAnalyzing = true;
+        List<MessageSuggestion> shown = new ArrayList<>(currentSuggestions);
+        if (!analysisPipeline.requestMoreSuggestions(currentContext, currentPlatform, shown)) {
+            Toast.makeText(this, "More suggestions are paused for a moment", Toast.LENGTH_SHORT).show();
+            return;
+        }
         showLoadingState();
-        
-        executorService.execute(new Runnable() {
+    }
+    
+    private AnalysisPipeline.Call startMoreSuggestions(final AnalysisPipeline.Request<MessageSuggestion> request) {
+        return asCall(scheduler.submit(PriorityTaskScheduler.Priority.MORE_SUGGESTIONS, TASK_MORE_SUGGESTIONS, new Runnable() {
             @Override
             public void run() {
                 aiCoachingService.generateMoreSuggestions(
-                    currentContext,
-                    appDetector.getCurrentDatingApp(),
-                    currentSuggestions,
+                    request.getContext(),
+                    request.getPlatform(),
+                    request.getShown(),
                     new AICoachingService.AnalysisCallback() {
                         @Override
                         public void onSuccess(List<MessageSuggestion> suggestions) {
                             runOnUiThread(new Runnable() {
                                 @Override
                                 public void run() {
-                                    handleMoreSuggestionsSuccess(suggestions);
+                                    analysisPipeline.onAttemptSuccess(request, 0, suggestions);
                                 }
                             });
                         }
@@ -566,22 +1386,26 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
                             runOnUiThread(new Runnable() {
                                 @Override
                                 public void run() {
-                                    handleAnalysisError(error);
+                                    analysisPipeline.onAttemptError(request, 0);
                                 }
                             });
                         }
                     }
                 );
             }
-        });
+        }));
     }
     
     private void handleMoreSuggestionsSuccess(List<MessageSuggestion> newSuggestions) {
-        isAnalyzing = false;
         hideLoadingState();
         
-        // Add new suggestions to existing ones
-        currentSuggestions.addAll(newSuggestions);
+        // Merge into the best few on screen; the strip never grows past the pool size.
+        // If nothing better or new came back, the frame pass finds the strip unchanged.
+        suggestionPool.clear();
+        suggestionPool.offerAll(currentSuggestions);
+        suggestionPool.offerAll(newSuggestions);
+        
+        currentSuggestions = new ArrayList<>(suggestionPool.getItems());
         updateSuggestions(currentSuggestions);
     }
     
@@ -602,49 +1426,71 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
     
     // MARK: - UI Updates
     private void updateSuggestionVisibility() {
-        boolean shouldShow = isSuggestionsEnabled && !currentSuggestions.isEmpty();
-        suggestionContainer.setVisibility(shouldShow ? View.VISIBLE : View.GONE);
+        uiDispatcher.invalidate();
     }
     
     private void showLoadingState() {
-        loadingIndicator.setVisibility(View.VISIBLE);
-        suggestionRecyclerView.setVisibility(View.GONE);
+        loadingVisible = true;
+        uiDispatcher.invalidate();
     }
     
     private void hideLoadingState() {
-        loadingIndicator.setVisibility(View.GONE);
-        suggestionRecyclerView.setVisibility(View.VISIBLE);
+        loadingVisible = false;
+        uiDispatcher.invalidate();
     }
     
     // MARK: - App Detection
-    private void detectCurrentApp() {
-        String currentApp = appDetector.getCurrentDatingApp();
-        
-        // Customize keyboard behavior based on detected app
-        customizeForApp(currentApp);
+    /**
+     * Resolve the app behind this editor and the profile that tunes analysis for
+     * it. The editor names its own package, so every session gets the app the
+     * user is actually typing in; every analysis, insert and request within the
+     * session reuses the result.
+     */
+    private void detectCurrentApp(EditorInfo info) {
+        AppProfile profile = AppProfile.forPackage(info.packageName);
+        currentPlatform = profile.getPlatform();
+        customizeForApp(profile);
     }
     
-    private void customizeForApp(String appIdentifier) {
-        // Customize keyboard layout or behavior based on the current dating app
-        switch (appIdentifier) {
-            case "tinder":
-                // Tinder-specific optimizations
-                break;
-            case "bumble":
-                // Bumble-specific optimizations
-                break;
-            case "hinge":
-                // Hinge-specific optimizations
-                break;
-            default:
-                // Default behavior
-                break;
+    private void customizeForApp(AppProfile profile) {
+        appProfile = profile;
+        
+        // Tinder keeps a short window, Hinge replies to prompts and needs more of the draft
+        if (contextBuffer.capacity() != profile.getContextWindowChars()) {
+            contextBuffer = new TextContextBuffer(profile.getContextWindowChars());
+        }
+        
+        analysisPipeline.setAppProfile(profile);
+        
+        // Nothing in flight or scheduled outlives a switch into a non-dating app
+        if (!profile.isAnalysisEnabled()) {
+            analysisPipeline.cancelPendingAnalysis();
+            analysisPipeline.cancelInFlightRequest();
         }
     }
     
     // MARK: - Utility Methods
+    // Results from worker threads land with the next frame, batched with the strip changes they make
     private void runOnUiThread(Runnable runnable) {
-        new Handler(Looper.getMainLooper()).post(runnable);
+        uiDispatcher.post(runnable);
+    }
+    
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter fout, String[] args) {
+        super.dump(fd, fout, args);
+        
+        // Shown by `adb shell dumpsys input_method`
+        metrics.dump(fout, "  ");
+        fout.println("  " + appProfile);
+        fout.println("  " + requestQuota);
+        fout.println("  " + analysisPipeline.getCircuitBreaker());
+        fout.println("  " + suggestionCache);
+        if (persistentSuggestions != null) {
+            fout.println("  " + persistentSuggestions);
+        }
+        fout.println("  " + scheduler);
+        fout.println("  " + httpClient);
+        fout.println("  " + uiDispatcher);
     }
     
     @Override
@@ -652,10 +1498,16 @@ public class AIKeyboardService extends InputMethodService implements KeyboardVie
         super.onDestroy();
         
         // Clean up resources
-        cancelPendingAnalysis();
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+        analysisPipeline.cancelPendingAnalysis();
+        analysisPipeline.cancelInFlightRequest();
+        cancelPrefetch();
+        uiDispatcher.cancel();
+        httpClient.setRateLimitListener(null);
+        saveRequestQuota();
+        httpClient.closeIdleConnections();
+        if (usageTelemetry != null) {
+            usageTelemetry.shutdown();
         }
+        scheduler.shutdownNow();
     }
 }
-
@@ -0,0 +1,20 @@
+/**
+ * AI Dating Coach - Keyboard Preferences
+ * The keyboard's SharedPreferences file and the keys the app writes into it
+ * through the bridge module. AIKeyboardService reads them at the start of
+ * each input session.
+ */
+
+package com.aidatingcoach.keyboard;
+
+public final class KeyboardPreferences {
+
+    public static final String NAME = "AIKeyboardPrefs";
+
+    // Written by the app
+    public static final String SUBSCRIPTION_TIER = "subscription_tier";
+    public static final String ACCESS_TOKEN = "access_token";
+
+    private KeyboardPreferences() {
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * AI Dating Coach - Keyboard Suggestions Module
+ * Exposes the keyboard's suggestion store to JS as NativeModules.KeyboardSuggestions.
+ * The app and the IME run in the same process, so both read and write the one
+ * PersistentSuggestionStore: suggestions computed on either surface are served
+ * to the other without a second network call.
+ *
+ * Suggestions cross the bridge in the shared TS MessageSuggestion shape:
+ * { text, tone, engagement_prediction, reasoning } with a lowercase tone.
+ * The app also reports the subscription tier, which sizes the keyboard's
+ * request quota, and the signed-in session the keyboard's own calls use.
+ */
+
+package com.aidatingcoach.keyboard.bridge;
+
+import android.content.Context;
+
+import com.aidatingcoach.keyboard.KeyboardPreferences;
+import com.aidatingcoach.keyboard.core.SuggestionCache;
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+import com.aidatingcoach.keyboard.models.SuggestionTone;
+import com.aidatingcoach.keyboard.services.CoachingHttpClient;
+import com.aidatingcoach.keyboard.services.PersistentSuggestionStore;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class KeyboardSuggestionsModule extends ReactContextBaseJavaModule {
+
+    public static final String NAME = "KeyboardSuggestions";
+
+    public KeyboardSuggestionsModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    // MARK: - JS API
+    /**
+     * Resolves the stored suggestions for a conversation, or null.
+     */
+    @ReactMethod
+    public void getSuggestions(String context, String platform, Promise promise) {
+        PersistentSuggestionStore store = PersistentSuggestionStore.getInstance(getReactApplicationContext());
+        List<MessageSuggestion> suggestions = store != null ? store.get(SuggestionCache.keyForContext(context, platform)) : null;
+        promise.resolve(toJs(suggestions));
+    }
+
+    /**
+     * Like getSuggestions, but only for an entry keyed by the whole
+     * conversation. Suggestions for just its last window answer the draft,
+     * not the conversation, so they resolve null.
+     */
+    @ReactMethod
+    public void getConversationSuggestions(String context, String platform, Promise promise) {
+        if (!SuggestionCache.isWholeContext(context, platform)) {
+            promise.resolve(null);
+            return;
+        }
+        getSuggestions(context, platform, promise);
+    }
+
+    /**
+     * Stores suggestions for a conversation so the keyboard can show them the
+     * next time the same draft is open. Resolves false if there is no store.
+     */
+    @ReactMethod
+    public void putSuggestions(String context, String platform, ReadableArray suggestions, Promise promise) {
+        PersistentSuggestionStore store = PersistentSuggestionStore.getInstance(getReactApplicationContext());
+        if (store == null) {
+            promise.resolve(false);
+            return;
+        }
+
+        List<MessageSuggestion> parsed = new ArrayList<>(suggestions.size());
+        for (int i = 0; i < suggestions.size(); i++) {
+            MessageSuggestion suggestion = parseSuggestion(suggestions.getMap(i));
+            if (suggestion != null) {
+                parsed.add(suggestion);
+            }
+        }
+        if (parsed.isEmpty()) {
+            promise.resolve(false);
+            return;
+        }
+
+        store.put(SuggestionCache.keyForContext(context, platform), parsed);
+        promise.resolve(true);
+    }
+
+    @ReactMethod
+    public void clear(Promise promise) {
+        PersistentSuggestionStore store = PersistentSuggestionStore.getInstance(getReactApplicationContext());
+        if (store != null) {
+            store.clear();
+        }
+        promise.resolve(null);
+    }
+
+    /**
+     * Records the user's tier for the keyboard: "spark", "flame" or "blaze", or
+     * the app's "free", "premium", "pro" or "elite".
+     */
+    @ReactMethod
+    public void setSubscriptionTier(String tier, Promise promise) {
+        getReactApplicationContext().getSharedPreferences(KeyboardPreferences.NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(KeyboardPreferences.SUBSCRIPTION_TIER, tier)
+            .apply();
+        promise.resolve(null);
+    }
+
+    /**
+     * Records the signed-in user's access token, or clears it on sign-out.
+     * The keyboard's coaching calls and usage uploads authenticate with it.
+     */
+    @ReactMethod
+    public void setAccessToken(String token, Promise promise) {
+        getReactApplicationContext().getSharedPreferences(KeyboardPreferences.NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(KeyboardPreferences.ACCESS_TOKEN, token)
+            .apply();
+        CoachingHttpClient.getInstance(getReactApplicationContext()).setAccessToken(token);
+        promise.resolve(null);
+    }
+
+    // MARK: - Private Helpers
+    private static WritableArray toJs(List<MessageSuggestion> suggestions) {
+        if (suggestions == null) return null;
+
+        WritableArray result = Arguments.createArray();
+        for (MessageSuggestion suggestion : suggestions) {
+            WritableMap map = Arguments.createMap();
+            map.putString("text", suggestion.getText());
+            map.putString("tone", suggestion.getTone().name().toLowerCase(Locale.US));
+            map.putDouble("engagement_prediction", suggestion.getEngagementPrediction());
+            map.putString("reasoning", suggestion.getReasoning());
+            result.pushMap(map);
+        }
+        return result;
+    }
+
+    private static MessageSuggestion parseSuggestion(ReadableMap map) {
+        if (map == null || !map.hasKey("text") || map.isNull("text")) return null;
+
+        String text = map.getString("text");
+        if (text == null || text.isEmpty()) return null;
+
+        SuggestionTone tone;
+        try {
+            String name = map.hasKey("tone") && !map.isNull("tone") ? map.getString("tone") : "casual";
+            tone = SuggestionTone.valueOf(name.toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            tone = SuggestionTone.CASUAL;
+        }
+
+        return new MessageSuggestion(
+            text,
+            tone,
+            map.hasKey("engagement_prediction") && !map.isNull("engagement_prediction")
+                ? map.getDouble("engagement_prediction") : 0.0,
+            map.hasKey("reasoning") && !map.isNull("reasoning") ? map.getString("reasoning") : ""
+        );
+    }
+}
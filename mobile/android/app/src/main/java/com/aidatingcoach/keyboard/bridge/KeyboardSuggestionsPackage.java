@@ -0,0 +1,28 @@
+/**
+ * AI Dating Coach - Keyboard Suggestions Package
+ * Registers KeyboardSuggestionsModule with React Native. Not autolinked; added
+ * by hand in MainApplication.getPackages().
+ */
+
+package com.aidatingcoach.keyboard.bridge;
+
+import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.uimanager.ViewManager;
+
+import java.util.Collections;
+import java.util.List;
+
+public class KeyboardSuggestionsPackage implements ReactPackage {
+
+    @Override
+    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
+        return Collections.<NativeModule>singletonList(new KeyboardSuggestionsModule(reactContext));
+    }
+
+    @Override
+    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+        return Collections.emptyList();
+    }
+}
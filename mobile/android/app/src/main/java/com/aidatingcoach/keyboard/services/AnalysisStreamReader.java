@@ -0,0 +1,142 @@
+/**
+ * AI Dating Coach - Analysis Stream Reader
+ * Reads the server-sent event stream produced by the streaming-analysis
+ * function and feeds suggestions to a StreamingAnalysisCallback as they arrive
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+import com.aidatingcoach.keyboard.models.SuggestionTone;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class AnalysisStreamReader {
+
+    private static final String DATA_PREFIX = "data:";
+
+    // Chunk types emitted by backend/functions/streaming-analysis
+    private static final String CHUNK_PARTIAL = "partial_result";
+    private static final String CHUNK_FINAL = "final_result";
+    private static final String CHUNK_ERROR = "error";
+
+    private final List<MessageSuggestion> received = new ArrayList<>();
+
+    /**
+     * Read the stream to completion, calling onPartial for each suggestion and
+     * exactly one of onSuccess/onError at the end. Stops early if the calling
+     * thread is interrupted.
+     */
+    public void read(InputStream stream, StreamingAnalysisCallback callback) {
+        received.clear();
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.forName("UTF-8")));
+            StringBuilder event = new StringBuilder();
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Analysis stream cancelled");
+                }
+
+                if (line.isEmpty()) {
+                    if (event.length() > 0 && dispatch(event.toString(), callback)) return;
+                    event.setLength(0);
+                } else if (line.startsWith(DATA_PREFIX)) {
+                    if (event.length() > 0) event.append('\n');
+                    event.append(line.substring(DATA_PREFIX.length()).trim());
+                }
+            }
+
+            // Stream closed without a final chunk: what we have is the result
+            if (event.length() > 0 && dispatch(event.toString(), callback)) return;
+            callback.onSuccess(new ArrayList<>(received));
+        } catch (IOException e) {
+            callback.onError(e.getMessage() != null ? e.getMessage() : "Analysis stream failed");
+        }
+    }
+
+    // MARK: - Private Helpers
+    /**
+     * @return true once the stream has delivered its terminal event
+     */
+    private boolean dispatch(String data, StreamingAnalysisCallback callback) {
+        JSONObject chunk;
+        try {
+            chunk = new JSONObject(data);
+        } catch (JSONException e) {
+            return false;
+        }
+
+        String type = chunk.optString("type");
+        if (CHUNK_ERROR.equals(type)) {
+            callback.onError(chunk.optString("error", "Analysis failed"));
+            return true;
+        }
+
+        JSONObject payload = chunk.optJSONObject("data");
+        if (payload == null) return false;
+
+        if (CHUNK_PARTIAL.equals(type)) {
+            MessageSuggestion suggestion = parseSuggestion(payload.optJSONObject("partial"));
+            if (suggestion != null) {
+                received.add(suggestion);
+                callback.onPartial(suggestion);
+            }
+            return false;
+        }
+
+        if (CHUNK_FINAL.equals(type)) {
+            JSONArray suggestions = payload.optJSONArray("nextMessageSuggestions");
+            if (suggestions == null) suggestions = payload.optJSONArray("suggestions");
+
+            if (suggestions != null) {
+                List<MessageSuggestion> result = new ArrayList<>(suggestions.length());
+                for (int i = 0; i < suggestions.length(); i++) {
+                    MessageSuggestion suggestion = parseSuggestion(suggestions.optJSONObject(i));
+                    if (suggestion != null) result.add(suggestion);
+                }
+                callback.onSuccess(result);
+            } else {
+                callback.onSuccess(new ArrayList<>(received));
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private static MessageSuggestion parseSuggestion(JSONObject json) {
+        if (json == null) return null;
+
+        String text = json.optString("text", null);
+        if (text == null || text.isEmpty()) return null;
+
+        SuggestionTone tone;
+        try {
+            tone = SuggestionTone.valueOf(json.optString("tone", "CASUAL").toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            tone = SuggestionTone.CASUAL;
+        }
+
+        return new MessageSuggestion(
+            text,
+            tone,
+            json.optDouble("engagementPrediction", json.optDouble("confidence", 0.0)),
+            json.optString("reasoning", "")
+        );
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * AI Dating Coach - Binary Suggestion Reader
+ * Reads a SuggestionCodec payload and feeds suggestions to a
+ * StreamingAnalysisCallback as each one is decoded. Used instead of
+ * AnalysisStreamReader when the response is binary.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.core.SuggestionCodec;
+import com.aidatingcoach.keyboard.core.SuggestionDecoder;
+import com.aidatingcoach.keyboard.core.SuggestionRecord;
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+import com.aidatingcoach.keyboard.models.SuggestionTone;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BinarySuggestionReader {
+
+    public static final String CONTENT_TYPE = SuggestionCodec.CONTENT_TYPE;
+
+    // Wire ordinals; fixed here so reordering the enum can't change the protocol
+    private static final SuggestionTone[] WIRE_TONES = {
+        SuggestionTone.CASUAL,
+        SuggestionTone.ENTHUSIASTIC,
+        SuggestionTone.FLIRTY,
+        SuggestionTone.THOUGHTFUL
+    };
+
+    private final SuggestionDecoder decoder = new SuggestionDecoder();
+    private final SuggestionRecord record = new SuggestionRecord();
+
+    public static int toWireOrdinal(SuggestionTone tone) {
+        for (int i = 0; i < WIRE_TONES.length; i++) {
+            if (WIRE_TONES[i] == tone) return i;
+        }
+        return 0;
+    }
+
+    public static SuggestionTone fromWireOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < WIRE_TONES.length ? WIRE_TONES[ordinal] : SuggestionTone.CASUAL;
+    }
+
+    /**
+     * Read the payload to completion, calling onPartial for each suggestion and
+     * exactly one of onSuccess/onError at the end. Stops early if the calling
+     * thread is interrupted.
+     */
+    public void read(InputStream stream, StreamingAnalysisCallback callback) {
+        try {
+            int count = decoder.begin(new BufferedInputStream(stream));
+            List<MessageSuggestion> suggestions = new ArrayList<>(count);
+
+            while (decoder.next(record)) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Suggestion payload cancelled");
+                }
+
+                MessageSuggestion suggestion = new MessageSuggestion(
+                    record.getText(),
+                    fromWireOrdinal(record.getToneOrdinal()),
+                    record.getEngagementPrediction(),
+                    record.getReasoning()
+                );
+                suggestions.add(suggestion);
+                callback.onPartial(suggestion);
+            }
+
+            callback.onSuccess(suggestions);
+        } catch (IOException e) {
+            callback.onError(e.getMessage() != null ? e.getMessage() : "Suggestion payload failed");
+        }
+    }
+}
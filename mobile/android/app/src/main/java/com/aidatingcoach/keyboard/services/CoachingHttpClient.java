@@ -0,0 +1,307 @@
+/**
+ * AI Dating Coach - Coaching HTTP Client
+ * Process-wide OkHttp client for the keyboard's own coaching API calls:
+ * analyses, prefetches and usage uploads. All requests share one connection
+ * pool, so they multiplex over the same HTTP/2 connection instead of paying
+ * for a TLS handshake each, and the keyboard can connect before the first
+ * typed request needs it.
+ * OkHttp negotiates HTTP/2 via ALPN and transparently requests and inflates
+ * gzip responses. Rate-limit headers on responses to metered requests (the
+ * analyses) are passed to a listener, so the keyboard's quota follows what the
+ * server enforces. Other endpoints, like usage uploads, are limited separately
+ * and their headers are ignored.
+ *
+ * Requests carry the project's API key and, once the app has reported a
+ * signed-in session, the user's access token.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import android.content.Context;
+
+import com.aidatingcoach.R;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+public final class CoachingHttpClient {
+
+    /**
+     * Rate-limit state the coaching API reports for metered requests. Called
+     * on OkHttp's threads.
+     */
+    public interface RateLimitListener {
+        /**
+         * @param remaining requests left in the current period, or -1 if not sent
+         * @param resetAtMs wall-clock time the period resets, or 0 if not sent
+         */
+        void onRateLimits(long remaining, long resetAtMs);
+
+        void onRateLimited(long retryAfterMs);
+    }
+
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long CONNECT_TIMEOUT_SECONDS = 5;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+    private static final long PING_INTERVAL_SECONDS = 30;
+    private static final long DEFAULT_RETRY_AFTER_MS = 60 * 1000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static volatile CoachingHttpClient instance;
+
+    // Tags requests that count against the analysis quota
+    private static final class Metered {
+    }
+
+    private static final Metered METERED = new Metered();
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final String apiKey;
+    private volatile String accessToken;
+    private volatile RateLimitListener rateLimitListener;
+    private final AtomicBoolean warmUpInFlight = new AtomicBoolean(false);
+
+    // Connection statistics
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+    private final AtomicLong http2Connections = new AtomicLong();
+
+    public static CoachingHttpClient getInstance(Context context) {
+        CoachingHttpClient client = instance;
+        if (client == null) {
+            synchronized (CoachingHttpClient.class) {
+                client = instance;
+                if (client == null) {
+                    Context appContext = context.getApplicationContext();
+                    client = new CoachingHttpClient(appContext.getString(R.string.coaching_api_url),
+                        appContext.getString(R.string.coaching_api_key));
+                    instance = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    // Package-private so tests can point it at a mock server
+    CoachingHttpClient(String baseUrl, String apiKey) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.client = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .pingInterval(PING_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .addInterceptor(new Interceptor() {
+                @Override
+                public Response intercept(Chain chain) throws IOException {
+                    Request request = chain.request();
+                    Response response = chain.proceed(request);
+                    if (request.tag(Metered.class) != null) {
+                        reportRateLimits(response);
+                    }
+                    return response;
+                }
+            })
+            .eventListener(new EventListener() {
+                @Override
+                public void callStart(Call call) {
+                    callCount.incrementAndGet();
+                }
+
+                @Override
+                public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+                    connectionsOpened.incrementAndGet();
+                    if (protocol == Protocol.HTTP_2) {
+                        http2Connections.incrementAndGet();
+                    }
+                }
+
+                @Override
+                public void connectionAcquired(Call call, Connection connection) {
+                    connectionsAcquired.incrementAndGet();
+                }
+            })
+            .build();
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Base URL of the coaching functions, ending in a slash. Debug builds can
+     * point it at a local mock server by overriding {@code coaching_api_url}.
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setRateLimitListener(RateLimitListener listener) {
+        rateLimitListener = listener;
+    }
+
+    // MARK: - Authentication
+    /**
+     * The signed-in user's access token, or null once signed out. The app
+     * reports every refresh.
+     */
+    public void setAccessToken(String token) {
+        accessToken = token != null && !token.isEmpty() ? token : null;
+    }
+
+    public boolean hasAccessToken() {
+        return accessToken != null;
+    }
+
+    /**
+     * A request to one of the coaching functions with the auth headers set.
+     */
+    public Request.Builder newRequest(String endpoint) {
+        Request.Builder builder = new Request.Builder()
+            .url(baseUrl + endpoint)
+            .header("apikey", apiKey);
+        String token = accessToken;
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    /**
+     * A request that counts against the analysis quota: its rate-limit
+     * headers are reported to the listener.
+     */
+    public Request.Builder newMeteredRequest(String endpoint) {
+        return newRequest(endpoint).tag(Metered.class, METERED);
+    }
+
+    /**
+     * Gzip a request body. The request needs a matching
+     * {@code Content-Encoding: gzip} header.
+     */
+    public static RequestBody gzip(String contentType, String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        try {
+            gzip.write(body.getBytes("UTF-8"));
+        } finally {
+            gzip.close();
+        }
+        return RequestBody.create(MediaType.parse(contentType), bytes.toByteArray());
+    }
+
+    // MARK: - Connection Management
+    /**
+     * Open a connection ahead of the first real request, so it skips DNS, TCP
+     * and TLS setup. Does nothing if a connection is already pooled.
+     */
+    public void warmUp() {
+        if (client.connectionPool().connectionCount() > 0) return;
+        if (!warmUpInFlight.compareAndSet(false, true)) return;
+
+        client.newCall(newRequest("").head().build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                warmUpInFlight.set(false);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Any status will do; the connection is what we wanted
+                response.close();
+                warmUpInFlight.set(false);
+            }
+        });
+    }
+
+    /**
+     * Close pooled connections that aren't carrying a request. In-flight calls
+     * keep theirs.
+     */
+    public void closeIdleConnections() {
+        client.connectionPool().evictAll();
+    }
+
+    // MARK: - Rate Limits
+    private void reportRateLimits(Response response) {
+        RateLimitListener listener = rateLimitListener;
+        if (listener == null) return;
+
+        if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+            listener.onRateLimited(parseRetryAfterMs(response.header("Retry-After")));
+            return;
+        }
+
+        long remaining = parseLong(response.header("X-RateLimit-Remaining"), -1);
+        long resetSeconds = parseLong(response.header("X-RateLimit-Reset"), 0);
+        if (remaining < 0 && resetSeconds <= 0) return;
+        listener.onRateLimits(remaining, resetSeconds > 0 ? resetSeconds * 1000 : 0);
+    }
+
+    /**
+     * Retry-After in delta-seconds form. The HTTP-date form isn't used by the
+     * coaching API, so it falls back to the default.
+     */
+    private static long parseRetryAfterMs(String value) {
+        long seconds = parseLong(value, -1);
+        return seconds >= 0 ? seconds * 1000 : DEFAULT_RETRY_AFTER_MS;
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // MARK: - Statistics
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Calls that were served on a connection opened for an earlier call.
+     */
+    public long getReusedConnectionCount() {
+        return Math.max(0, connectionsAcquired.get() - connectionsOpened.get());
+    }
+
+    @Override
+    public String toString() {
+        return "CoachingHttpClient{calls=" + callCount.get()
+            + ", connections=" + connectionsOpened.get()
+            + " (h2=" + http2Connections.get() + ")"
+            + ", reused=" + getReusedConnectionCount()
+            + ", pooled=" + client.connectionPool().connectionCount()
+            + ", idle=" + client.connectionPool().idleConnectionCount() + "}";
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * AI Dating Coach - Context Delta JSON
+ * Request and response fields for the context session protocol. Hashes are
+ * sent as hex strings because JavaScript numbers can't hold 64 bits.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.core.ContextDelta;
+import com.aidatingcoach.keyboard.core.ContextDeltaEncoder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+
+public final class ContextDeltaJson {
+
+    // Request
+    private static final String FIELD_SESSION = "contextSession";
+    private static final String FIELD_CONTEXT = "context";
+    private static final String FIELD_BASE_HASH = "contextBase";
+    private static final String FIELD_EDIT_START = "editStart";
+    private static final String FIELD_DELETE_COUNT = "deleteCount";
+    private static final String FIELD_INSERT = "insert";
+    private static final String FIELD_HASH = "contextHash";
+    private static final String FIELD_LENGTH = "contextLength";
+
+    // Response
+    private static final String FIELD_ACK = "contextAck";
+    private static final String FIELD_RESYNC = "contextResync";
+
+    private ContextDeltaJson() {
+    }
+
+    /**
+     * Add the delta's fields to a request body. Full requests carry the plain
+     * {@code context} field, so servers without session support still work.
+     */
+    public static void write(ContextDelta delta, JSONObject request) throws JSONException {
+        request.put(FIELD_SESSION, delta.getSessionId());
+        request.put(FIELD_HASH, Long.toHexString(delta.getResultHash()));
+        request.put(FIELD_LENGTH, delta.getResultLength());
+
+        if (delta.isFull()) {
+            request.put(FIELD_CONTEXT, delta.getInsert());
+        } else {
+            request.put(FIELD_BASE_HASH, Long.toHexString(delta.getBaseHash()));
+            request.put(FIELD_EDIT_START, delta.getStart());
+            request.put(FIELD_DELETE_COUNT, delta.getDeleteCount());
+            request.put(FIELD_INSERT, delta.getInsert());
+        }
+    }
+
+    /**
+     * Feed the server's answer back to the encoder. Returns false when the
+     * request has to be repeated with the full context.
+     */
+    public static boolean read(JSONObject response, ContextDeltaEncoder encoder) {
+        if (response.optBoolean(FIELD_RESYNC, false)) {
+            encoder.resync();
+            return false;
+        }
+
+        String ack = response.optString(FIELD_ACK, null);
+        if (ack != null) {
+            try {
+                encoder.acknowledge(new BigInteger(ack, 16).longValue());
+            } catch (NumberFormatException e) {
+                encoder.resync();
+            }
+        }
+        return true;
+    }
+}
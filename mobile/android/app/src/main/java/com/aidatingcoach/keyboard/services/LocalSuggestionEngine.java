@@ -0,0 +1,94 @@
+/**
+ * AI Dating Coach - Local Suggestion Engine
+ * Instant on-device suggestions shown while the cloud analysis is in flight
+ * or when it fails
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.aidatingcoach.keyboard.core.PhraseIndex;
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+import com.aidatingcoach.keyboard.models.SuggestionTone;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LocalSuggestionEngine {
+
+    private static final String TAG = "LocalSuggestionEngine";
+    private static final String PHRASES_ASSET = "keyboard/phrases.tsv";
+
+    private final Context context;
+    private volatile PhraseIndex phraseIndex;
+
+    public LocalSuggestionEngine(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Parse the bundled phrase table. Call off the main thread; suggest() returns
+     * nothing until loading finishes.
+     */
+    public void load() {
+        if (phraseIndex != null) return;
+
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(context.getAssets().open(PHRASES_ASSET), Charset.forName("UTF-8"));
+            phraseIndex = PhraseIndex.load(reader);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load phrase table", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return phraseIndex != null;
+    }
+
+    /**
+     * Main thread only: the phrase index reuses its scratch buffers across
+     * lookups.
+     */
+    public List<MessageSuggestion> suggest(CharSequence conversationContext, int limit) {
+        return suggest(conversationContext, null, limit);
+    }
+
+    public List<MessageSuggestion> suggest(CharSequence conversationContext, SuggestionTone tone, int limit) {
+        List<MessageSuggestion> suggestions = new ArrayList<>(limit);
+        PhraseIndex index = phraseIndex;
+        if (index == null) return suggestions;
+
+        List<PhraseIndex.Phrase> phrases = new ArrayList<>(limit);
+        index.suggest(conversationContext, tone != null ? tone.name() : null, limit, phrases);
+
+        for (PhraseIndex.Phrase phrase : phrases) {
+            SuggestionTone phraseTone;
+            try {
+                phraseTone = SuggestionTone.valueOf(phrase.getTone());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            suggestions.add(new MessageSuggestion(
+                phrase.getText(),
+                phraseTone,
+                phrase.getScore(),
+                phrase.getReasoning()
+            ));
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * AI Dating Coach - Persistent Suggestion Store
+ * Process-wide on-disk second tier behind the in-memory SuggestionCache.
+ * Suggestions are stored in the binary codec format in a memory-mapped table,
+ * so the first keyboard open after the process is killed can still show them
+ * without a network round-trip.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.aidatingcoach.keyboard.core.MappedSuggestionStore;
+import com.aidatingcoach.keyboard.core.SuggestionCodec;
+import com.aidatingcoach.keyboard.core.SuggestionDecoder;
+import com.aidatingcoach.keyboard.core.SuggestionRecord;
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PersistentSuggestionStore {
+
+    private static final String TAG = "PersistentSuggestions";
+    private static final String STORE_FILE = "keyboard/suggestions.store";
+    private static final int SLOT_COUNT = 512;
+    private static final int SLOT_SIZE = 2048; // Eight typical suggestions encode to well under 1 KB
+    private static final long TTL_MS = 24 * 60 * 60 * 1000;
+
+    private static PersistentSuggestionStore instance;
+
+    private final MappedSuggestionStore store;
+    private final SuggestionDecoder decoder = new SuggestionDecoder();
+    private final SuggestionRecord record = new SuggestionRecord();
+
+    /**
+     * The shared store, or null if the file can't be mapped. Callers then
+     * simply run without the disk tier.
+     */
+    public static synchronized PersistentSuggestionStore getInstance(Context context) {
+        if (instance == null) {
+            try {
+                File file = new File(context.getApplicationContext().getFilesDir(), STORE_FILE);
+                instance = new PersistentSuggestionStore(new MappedSuggestionStore(file, SLOT_COUNT, SLOT_SIZE, TTL_MS));
+            } catch (IOException e) {
+                Log.w(TAG, "Suggestion store unavailable", e);
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    private PersistentSuggestionStore(MappedSuggestionStore store) {
+        this.store = store;
+    }
+
+    // MARK: - Access
+    /**
+     * Suggestions stored for a SuggestionCache key, or null.
+     */
+    public synchronized List<MessageSuggestion> get(long key) {
+        byte[] payload = store.get(key);
+        if (payload == null) return null;
+
+        try {
+            int count = decoder.begin(new ByteArrayInputStream(payload));
+            List<MessageSuggestion> suggestions = new ArrayList<>(count);
+            while (decoder.next(record)) {
+                suggestions.add(new MessageSuggestion(
+                    record.getText(),
+                    BinarySuggestionReader.fromWireOrdinal(record.getToneOrdinal()),
+                    record.getEngagementPrediction(),
+                    record.getReasoning()
+                ));
+            }
+            return suggestions;
+        } catch (IOException e) {
+            // Passed the CRC but written by an incompatible codec version
+            store.remove(key);
+            return null;
+        }
+    }
+
+    public void put(long key, List<MessageSuggestion> suggestions) {
+        List<SuggestionRecord> records = new ArrayList<>(suggestions.size());
+        for (MessageSuggestion suggestion : suggestions) {
+            records.add(new SuggestionRecord(
+                suggestion.getText(),
+                BinarySuggestionReader.toWireOrdinal(suggestion.getTone()),
+                suggestion.getEngagementPrediction(),
+                suggestion.getReasoning()
+            ));
+        }
+        store.put(key, SuggestionCodec.encode(records));
+    }
+
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public String toString() {
+        return store.toString();
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * AI Dating Coach - Streaming Analysis Callback
+ * Analysis callback that also receives suggestions one at a time as the
+ * backend produces them
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+
+public interface StreamingAnalysisCallback extends AICoachingService.AnalysisCallback {
+
+    /**
+     * Called for each suggestion as soon as it is generated, before
+     * {@link #onSuccess} delivers the complete list. Clients that don't stream
+     * simply never call this.
+     */
+    void onPartial(MessageSuggestion suggestion);
+}
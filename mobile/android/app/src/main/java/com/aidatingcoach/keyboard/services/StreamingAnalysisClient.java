@@ -0,0 +1,95 @@
+/**
+ * AI Dating Coach - Streaming Analysis Client
+ * The keyboard's analyses over the shared CoachingHttpClient: one POST to the
+ * streaming-analysis function, read with AnalysisStreamReader as suggestions
+ * arrive. Typed requests reuse the pooled connection the keyboard opened when
+ * it was shown, instead of setting up their own.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.core.RequestQuota;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+public class StreamingAnalysisClient {
+
+    public static final String ENDPOINT = "streaming-analysis";
+
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final CoachingHttpClient httpClient;
+
+    public StreamingAnalysisClient(CoachingHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Analyze {@code context} on the calling thread, blocking until the stream
+     * ends. Exactly one of onSuccess/onError is called; interrupting the thread
+     * stops the read early.
+     */
+    public void analyzeConversation(String context, String platform, RequestQuota.Tier tier,
+                                    StreamingAnalysisCallback callback) {
+        Request request;
+        try {
+            request = httpClient.newMeteredRequest(ENDPOINT)
+                .header("Accept", "text/event-stream")
+                .post(RequestBody.create(MediaType.parse(CONTENT_TYPE), writeRequest(context, platform, tier)))
+                .build();
+        } catch (JSONException e) {
+            callback.onError("Couldn't encode the analysis request");
+            return;
+        }
+
+        Response response = null;
+        try {
+            response = httpClient.getClient().newCall(request).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                callback.onError("Analysis failed with HTTP " + response.code());
+                return;
+            }
+            new AnalysisStreamReader().read(response.body().byteStream(), callback);
+        } catch (IOException e) {
+            callback.onError(e.getMessage() != null ? e.getMessage() : "Analysis request failed");
+        } finally {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    // MARK: - Private Helpers
+    private static String writeRequest(String context, String platform, RequestQuota.Tier tier) throws JSONException {
+        JSONObject data = new JSONObject()
+            .put("conversation", context)
+            .put("platform", platform);
+        return new JSONObject()
+            .put("type", "conversation")
+            .put("data", data)
+            .put("userTier", tierName(tier))
+            .put("streamingEnabled", true)
+            .put("priority", "speed")
+            .toString();
+    }
+
+    // The function sizes results by the app's tier names
+    private static String tierName(RequestQuota.Tier tier) {
+        switch (tier) {
+            case BLAZE:
+                return "pro";
+            case FLAME:
+                return "premium";
+            default:
+                return "free";
+        }
+    }
+}
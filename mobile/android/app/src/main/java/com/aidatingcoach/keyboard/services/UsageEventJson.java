@@ -0,0 +1,49 @@
+/**
+ * AI Dating Coach - Usage Event JSON
+ * Request body for the batched suggestion usage upload: one request per
+ * batch read from the UsageEventLog, instead of one call per event.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.core.UsageEventLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Locale;
+
+public final class UsageEventJson {
+
+    public static final String ENDPOINT = "keyboard-usage"; // backend/functions/keyboard-usage
+    public static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static final String FIELD_EVENTS = "events";
+    private static final String FIELD_TIMESTAMP = "timestampMs";
+    private static final String FIELD_TONE = "tone";
+    private static final String FIELD_PLATFORM = "platform";
+    private static final String FIELD_ENGAGEMENT = "engagementPrediction";
+    private static final String FIELD_TEXT = "text";
+
+    private UsageEventJson() {
+    }
+
+    /**
+     * Tones go out by name, decoded from the stable wire code the log stores.
+     */
+    public static String write(List<UsageEventLog.Event> batch) throws JSONException {
+        JSONArray events = new JSONArray();
+        for (UsageEventLog.Event event : batch) {
+            JSONObject json = new JSONObject();
+            json.put(FIELD_TIMESTAMP, event.timestampMs);
+            json.put(FIELD_TONE, BinarySuggestionReader.fromWireOrdinal(event.toneCode).name().toLowerCase(Locale.US));
+            json.put(FIELD_PLATFORM, event.platform);
+            json.put(FIELD_ENGAGEMENT, (double) event.engagementPrediction);
+            json.put(FIELD_TEXT, event.text);
+            events.put(json);
+        }
+        return new JSONObject().put(FIELD_EVENTS, events).toString();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * AI Dating Coach - Usage Telemetry Queue
+ * Takes suggestion usage tracking off the tap path: events are appended to an
+ * on-disk log and uploaded in batches by a background flusher
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import com.aidatingcoach.keyboard.core.UsageEventLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class UsageTelemetryQueue {
+
+    private static final int SYNC_EVERY_RECORDS = 16;
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_INTERVAL_MS = 30 * 1000;
+    private static final long MAX_BACKOFF_MS = 15 * 60 * 1000;
+
+    /**
+     * Sends a batch of events. Returns false when the batch should be retried
+     * later, e.g. when offline.
+     */
+    public interface Uploader {
+        boolean upload(List<UsageEventLog.Event> batch);
+    }
+
+    private final UsageEventLog eventLog;
+    private final Uploader uploader;
+    private final ScheduledExecutorService scheduler;
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private ScheduledFuture<?> scheduledFlush;
+    private long backoffMs = FLUSH_INTERVAL_MS;
+    private boolean flushRequested = false;
+
+    public UsageTelemetryQueue(File directory, Uploader uploader) throws IOException {
+        this.eventLog = new UsageEventLog(directory);
+        this.uploader = uploader;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "UsageTelemetry");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+
+        // Events left over from a previous process go out on the normal schedule
+        scheduleFlush(FLUSH_INTERVAL_MS);
+    }
+
+    // MARK: - Recording
+    /**
+     * Queue an event. Only touches the page cache; fsync and upload happen on
+     * the telemetry thread.
+     */
+    public void record(final UsageEventLog.Event event) {
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    eventLog.append(event);
+                    if (eventLog.getUnsyncedCount() >= SYNC_EVERY_RECORDS) {
+                        eventLog.sync();
+                    }
+                    if (eventLog.getPendingCount() >= BATCH_SIZE) {
+                        requestFlush();
+                    }
+                } catch (IOException e) {
+                    // Telemetry is best effort
+                }
+            }
+        });
+    }
+
+    /**
+     * Flush soon, e.g. when the keyboard is hidden. Ignored while backing off.
+     */
+    public void requestFlush() {
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (flushRequested || backoffMs > FLUSH_INTERVAL_MS) return;
+                flushRequested = true;
+                scheduleFlush(0);
+            }
+        });
+    }
+
+    public void shutdown() {
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                }
+                try {
+                    eventLog.close();
+                } catch (IOException e) {
+                    // Unsynced records may be lost; synced ones are replayed next start
+                }
+            }
+        });
+        scheduler.shutdown();
+    }
+
+    // MARK: - Flushing
+    private void flush() {
+        flushRequested = false;
+
+        try {
+            eventLog.sync();
+
+            List<UsageEventLog.Event> batch = new ArrayList<>(BATCH_SIZE);
+            while (eventLog.readPending(BATCH_SIZE, batch) > 0) {
+                if (!uploader.upload(batch)) {
+                    // Offline or server trouble: back off exponentially
+                    backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+                    scheduleFlush(backoffMs);
+                    return;
+                }
+                eventLog.acknowledge(batch.size());
+                batch.clear();
+            }
+
+            backoffMs = FLUSH_INTERVAL_MS;
+        } catch (IOException e) {
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        }
+
+        scheduleFlush(backoffMs);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = scheduler.schedule(flushRunnable, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * AI Dating Coach - Frame Dispatcher
+ * Coalesces main-thread UI work into one pass per Choreographer frame.
+ * Runnables posted from any thread run at the start of the next frame, then
+ * the listener applies whatever state they and other callers invalidated.
+ */
+
+package com.aidatingcoach.keyboard.utils;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class FrameDispatcher implements Choreographer.FrameCallback {
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    public interface FrameListener {
+        /**
+         * Apply pending UI state. Called on the main thread at most once per frame.
+         *
+         * @param skippedFrames vsyncs missed between this frame being due and running
+         */
+        void onFrame(int skippedFrames);
+    }
+
+    private final FrameListener listener;
+    private final Choreographer choreographer;
+    private final long frameIntervalNanos;
+
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    private boolean cancelled = false;
+
+    private long frameCount = 0;
+    private long skippedFrameCount = 0;
+
+    /**
+     * Must be created on the main thread; the Choreographer is per-looper.
+     */
+    public FrameDispatcher(Context context, FrameListener listener) {
+        this.listener = listener;
+        this.choreographer = Choreographer.getInstance();
+
+        float refreshRate = DEFAULT_REFRESH_RATE;
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager != null) {
+            Display display = windowManager.getDefaultDisplay();
+            if (display != null && display.getRefreshRate() > 0) {
+                refreshRate = display.getRefreshRate();
+            }
+        }
+        this.frameIntervalNanos = (long) (1000000000L / refreshRate);
+    }
+
+    // MARK: - Scheduling
+    /**
+     * Run on the main thread with the next frame. Safe to call from any thread.
+     */
+    public void post(Runnable runnable) {
+        pending.add(runnable);
+        requestFrame();
+    }
+
+    /**
+     * Ask for the listener to run with the next frame. Safe to call from any thread.
+     */
+    public void invalidate() {
+        requestFrame();
+    }
+
+    /**
+     * Drop pending work and stop scheduling frames.
+     */
+    public void cancel() {
+        cancelled = true;
+        pending.clear();
+        choreographer.removeFrameCallback(this);
+    }
+
+    private void requestFrame() {
+        if (frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    // MARK: - Choreographer.FrameCallback
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled.set(false);
+        if (cancelled) return;
+
+        // Frame time is the vsync this frame was meant for; lateness means dropped frames
+        long lateNanos = System.nanoTime() - frameTimeNanos;
+        int skippedFrames = lateNanos >= frameIntervalNanos ? (int) (lateNanos / frameIntervalNanos) : 0;
+        frameCount++;
+        skippedFrameCount += skippedFrames;
+
+        Runnable runnable;
+        while ((runnable = pending.poll()) != null) {
+            runnable.run();
+        }
+
+        listener.onFrame(skippedFrames);
+    }
+
+    // MARK: - Statistics
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameDispatcher{frames=" + getFrameCount()
+            + ", skipped=" + getSkippedFrameCount()
+            + ", interval=" + (frameIntervalNanos / 1000) + "us"
+            + ", pending=" + pending.size() + "}";
+    }
+}
@@ -1,6 +1,9 @@
 package com.aidatingcoach.mobile;
 
 import android.app.Application;
+import com.aidatingcoach.keyboard.bridge.KeyboardSuggestionsPackage;
+import com.aidatingcoach.startup.IdleTaskQueue;
+import com.aidatingcoach.startup.StartupTracer;
 import com.facebook.react.PackageList;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactHost;
@@ -28,6 +31,7 @@ public class MainApplication extends Application implements ReactApplication {
                 List<ReactPackage> packages = new PackageList(this).getPackages();
                 // Packages that cannot be autolinked yet can be added manually here, for example:
                 // packages.add(new MyReactNativePackage());
+                packages.add(new KeyboardSuggestionsPackage());
                 return packages;
             }
 
@@ -59,12 +63,32 @@ public class MainApplication extends Application implements ReactApplication {
 
     @Override
     public void onCreate() {
+        StartupTracer tracer = StartupTracer.get();
+        tracer.setApplicationName(getClass().getName());
+        tracer.begin(StartupTracer.PHASE_APPLICATION_CREATE);
         super.onCreate();
+
+        tracer.begin(StartupTracer.PHASE_SOLOADER);
         SoLoader.init(this, /* native exopackage */ false);
+        tracer.end(StartupTracer.PHASE_SOLOADER);
         if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
             // If you opted-in for the New Architecture, we load the native entry point for this app.
+            tracer.begin(StartupTracer.PHASE_NEW_ARCH_ENTRY);
             DefaultNewArchitectureEntryPoint.load();
+            tracer.end(StartupTracer.PHASE_NEW_ARCH_ENTRY);
+        }
+
+        // Debug tooling only; it waits until the main thread first goes idle instead of delaying the first frame
+        if (BuildConfig.DEBUG) {
+            IdleTaskQueue.getMain().enqueue("flipper", new Runnable() {
+                @Override
+                public void run() {
+                    StartupTracer.get().begin(StartupTracer.PHASE_DEFERRED_FLIPPER);
+                    ReactNativeFlipper.initializeFlipper(MainApplication.this, getReactNativeHost().getReactInstanceManager());
+                    StartupTracer.get().end(StartupTracer.PHASE_DEFERRED_FLIPPER);
+                }
+            });
         }
-        ReactNativeFlipper.initializeFlipper(this, getReactNativeHost().getReactInstanceManager());
+        tracer.end(StartupTracer.PHASE_APPLICATION_CREATE);
     }
 }
\ No newline at end of file
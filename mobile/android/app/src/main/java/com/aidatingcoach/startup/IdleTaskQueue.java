@@ -0,0 +1,100 @@
+/**
+ * AI Dating Coach - Idle Task Queue
+ * Runs non-critical init on the main thread when its looper goes idle, one
+ * task per idle pass, so input and frames are handled between tasks. Anything
+ * still queued after MAX_DEFER_MS runs anyway, in case the looper never idles
+ * (e.g. a looping animation on the first screen).
+ */
+
+package com.aidatingcoach.startup;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+
+public final class IdleTaskQueue implements MessageQueue.IdleHandler {
+
+    private static final String TAG = "IdleTaskQueue";
+    private static final long MAX_DEFER_MS = 5000;
+
+    private static IdleTaskQueue mainQueue;
+
+    private final ArrayDeque<NamedTask> tasks = new ArrayDeque<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            while (runNext()) {
+                // Deadline passed: drain
+            }
+        }
+    };
+    private boolean registered = false;
+
+    /**
+     * The main thread's queue. Call from the main thread.
+     */
+    public static IdleTaskQueue getMain() {
+        if (mainQueue == null) {
+            mainQueue = new IdleTaskQueue();
+        }
+        return mainQueue;
+    }
+
+    private IdleTaskQueue() {
+    }
+
+    public void enqueue(String name, Runnable task) {
+        tasks.addLast(new NamedTask(name, task));
+
+        if (!registered) {
+            registered = true;
+            Looper.myQueue().addIdleHandler(this);
+            handler.postDelayed(drainRunnable, MAX_DEFER_MS);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        return runNext();
+    }
+
+    /**
+     * Run one task. Returns whether more are queued; when none are, the idle
+     * handler and the deadline are dropped until the next enqueue.
+     */
+    private boolean runNext() {
+        NamedTask next = tasks.pollFirst();
+        if (next != null) {
+            try {
+                next.task.run();
+            } catch (RuntimeException e) {
+                // Deferred init is optional; one failure shouldn't take the rest down
+                Log.e(TAG, "Deferred task " + next.name + " failed", e);
+            }
+        }
+
+        if (tasks.isEmpty()) {
+            if (registered) {
+                registered = false;
+                Looper.myQueue().removeIdleHandler(this);
+                handler.removeCallbacks(drainRunnable);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static final class NamedTask {
+        final String name;
+        final Runnable task;
+
+        NamedTask(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * AI Dating Coach - Startup Tracer
+ * Times named cold-start phases on the monotonic clock, checks each against a
+ * budget, and writes one summary per start to logcat and to
+ * files/startup/last_startup.txt. Phases also appear as trace sections in
+ * Perfetto/systrace captures.
+ *
+ * Both MainApplication copies report through here, tagged with their class
+ * name, so the summary shows which init path a build actually runs.
+ */
+
+package com.aidatingcoach.startup;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import com.aidatingcoach.keyboard.core.StartupBudget;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+public final class StartupTracer {
+
+    private static final String TAG = "StartupTracer";
+    private static final String TRACE_FILE = "startup/last_startup.txt";
+    private static final long NANOS_PER_MS = 1000000;
+
+    // Phases, in the order they run
+    public static final String PHASE_APPLICATION_CREATE = "application_create";
+    public static final String PHASE_SOLOADER = "soloader";
+    public static final String PHASE_NEW_ARCH_ENTRY = "new_arch_entry";
+    public static final String PHASE_ACTIVITY_CREATE = "activity_create";
+    public static final String PHASE_FIRST_FRAME = "first_frame"; // Measured from process start
+    public static final String PHASE_DEFERRED_FLIPPER = "deferred_flipper";
+
+    private static final StartupTracer INSTANCE = new StartupTracer();
+
+    private final long processStartNanos;
+    private final StartupBudget budget = createBudget();
+    private String applicationName = "unknown";
+    private boolean reported = false;
+    private boolean reportWritten = false; // Later phases (e.g. activity recreation) are only trace sections
+
+    public static StartupTracer get() {
+        return INSTANCE;
+    }
+
+    private StartupTracer() {
+        // The zygote fork time is the honest start; older releases only give us class load
+        processStartNanos = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+            ? Process.getStartElapsedRealtime() * NANOS_PER_MS
+            : SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Budgets in milliseconds. Deferred work runs after the first frame and is
+     * reported but not budgeted.
+     */
+    private static StartupBudget createBudget() {
+        return new StartupBudget()
+            .setBudgetMs(PHASE_APPLICATION_CREATE, 250)
+            .setBudgetMs(PHASE_SOLOADER, 100)
+            .setBudgetMs(PHASE_NEW_ARCH_ENTRY, 50)
+            .setBudgetMs(PHASE_ACTIVITY_CREATE, 300)
+            .setBudgetMs(PHASE_FIRST_FRAME, 1200);
+    }
+
+    public synchronized void setApplicationName(String name) {
+        applicationName = name;
+    }
+
+    // MARK: - Phases
+    /**
+     * Start a phase. Phases on one thread must nest, since they are also
+     * trace sections.
+     */
+    public synchronized void begin(String phase) {
+        Trace.beginSection(phase);
+        if (reportWritten) return;
+        budget.begin(phase, SystemClock.elapsedRealtimeNanos());
+    }
+
+    public synchronized void end(String phase) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        Trace.endSection();
+        if (reportWritten) return;
+
+        if (budget.end(phase, now)) {
+            Log.w(TAG, phase + " took " + budget.getDurationMs(phase) + "ms, budget " + budget.getBudgetMs(phase) + "ms");
+        }
+    }
+
+    /**
+     * Record the first drawn frame, measured from process start, and queue the
+     * summary behind any deferred init so it reports that too. Only the first
+     * call counts.
+     */
+    public synchronized void markFirstFrame(final Context context, IdleTaskQueue idleQueue) {
+        if (reported) return;
+        reported = true;
+
+        budget.record(PHASE_FIRST_FRAME, processStartNanos, SystemClock.elapsedRealtimeNanos());
+
+        final Context appContext = context.getApplicationContext();
+        idleQueue.enqueue("startup_report", new Runnable() {
+            @Override
+            public void run() {
+                report(appContext);
+            }
+        });
+    }
+
+    // MARK: - Reporting
+    public synchronized String getSummary() {
+        return budget.getSummary(applicationName);
+    }
+
+    private synchronized void report(final Context context) {
+        reportWritten = true;
+        final String summary = getSummary();
+        Log.i(TAG, summary);
+
+        // Off the main thread: this is a file write on a cold-start path
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                File file = new File(context.getFilesDir(), TRACE_FILE);
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs()) return;
+
+                Writer out = null;
+                try {
+                    out = new FileWriter(file, false);
+                    out.write(summary);
+                    out.write('\n');
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not write startup trace", e);
+                } finally {
+                    if (out != null) {
+                        try {
+                            out.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+        }, "StartupTraceWriter");
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+}
@@ -1,5 +1,10 @@
 package com.aidatingcoachmobile;
 
+import android.os.Bundle;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import com.aidatingcoach.startup.IdleTaskQueue;
+import com.aidatingcoach.startup.StartupTracer;
 import com.facebook.react.ReactActivity;
 import com.facebook.react.ReactActivityDelegate;
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint;
@@ -7,6 +12,23 @@ import com.facebook.react.defaults.DefaultReactActivityDelegate;
 
 public class MainActivity extends ReactActivity {
 
+  @Override
+  protected void onCreate(Bundle savedInstanceState) {
+    StartupTracer.get().begin(StartupTracer.PHASE_ACTIVITY_CREATE);
+    super.onCreate(savedInstanceState);
+    StartupTracer.get().end(StartupTracer.PHASE_ACTIVITY_CREATE);
+
+    final View decorView = getWindow().getDecorView();
+    decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+      @Override
+      public boolean onPreDraw() {
+        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+        StartupTracer.get().markFirstFrame(MainActivity.this, IdleTaskQueue.getMain());
+        return true;
+      }
+    });
+  }
+
   /**
    * Returns the name of the main component registered from JavaScript. This is used to schedule
    * rendering of the component.
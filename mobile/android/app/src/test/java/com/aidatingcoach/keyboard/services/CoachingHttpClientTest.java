@@ -0,0 +1,171 @@
+/**
+ * AI Dating Coach - Coaching HTTP Client Tests
+ * Runs against MockWebServer, so they check what OkHttp actually does with
+ * the pool and the rate-limit headers.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class CoachingHttpClientTest {
+
+    private MockWebServer server;
+    private CoachingHttpClient client;
+    private long remaining;
+    private long resetAtMs;
+    private long retryAfterMs;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new CoachingHttpClient(server.url("/functions/v1/").toString(), "anon-key");
+        client.setRateLimitListener(new CoachingHttpClient.RateLimitListener() {
+            @Override
+            public void onRateLimits(long remaining, long resetAtMs) {
+                CoachingHttpClientTest.this.remaining = remaining;
+                CoachingHttpClientTest.this.resetAtMs = resetAtMs;
+            }
+
+            @Override
+            public void onRateLimited(long retryAfterMs) {
+                CoachingHttpClientTest.this.retryAfterMs = retryAfterMs;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.closeIdleConnections();
+        server.shutdown();
+    }
+
+    @Test
+    public void requestsReuseOnePooledConnection() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("{}"));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post("{\"events\":[]}"));
+        }
+
+        assertEquals(3, client.getCallCount());
+        assertEquals(1, client.getConnectionsOpened());
+        assertEquals(2, client.getReusedConnectionCount());
+        assertEquals(3, server.getRequestCount());
+
+        client.closeIdleConnections();
+        assertEquals(0, client.getClient().connectionPool().connectionCount());
+    }
+
+    @Test
+    public void reportsRateLimitHeaders() throws IOException {
+        server.enqueue(new MockResponse()
+            .setHeader("X-RateLimit-Remaining", "7")
+            .setHeader("X-RateLimit-Reset", "1700000000"));
+        post(client.newMeteredRequest(StreamingAnalysisClient.ENDPOINT), "{}");
+
+        assertEquals(7, remaining);
+        assertEquals(1700000000000L, resetAtMs);
+    }
+
+    @Test
+    public void reportsRetryAfterOn429() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "30"));
+        assertEquals(429, post(client.newMeteredRequest(StreamingAnalysisClient.ENDPOINT), "{}"));
+        assertEquals(30 * 1000, retryAfterMs);
+
+        // No usable Retry-After: back off for the default minute
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "Wed, 21 Oct 2026 07:28:00 GMT"));
+        post(client.newMeteredRequest(StreamingAnalysisClient.ENDPOINT), "{}");
+        assertEquals(60 * 1000, retryAfterMs);
+    }
+
+    @Test
+    public void ignoresRateLimitsOfUnmeteredRequests() throws IOException {
+        remaining = -1;
+        server.enqueue(new MockResponse()
+            .setHeader("X-RateLimit-Remaining", "0")
+            .setHeader("X-RateLimit-Reset", "1700000000"));
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "30"));
+
+        // Usage uploads are limited on their own; they mustn't block analyses
+        post("{}");
+        assertEquals(429, post("{}"));
+
+        assertEquals(-1, remaining);
+        assertEquals(0, resetAtMs);
+        assertEquals(0, retryAfterMs);
+    }
+
+    @Test
+    public void requestsCarryAuthAndGzippedBodies() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+
+        post("{}");
+        RecordedRequest signedOut = server.takeRequest();
+        assertEquals("anon-key", signedOut.getHeader("apikey"));
+        assertNull(signedOut.getHeader("Authorization"));
+
+        client.setAccessToken("user-token");
+        Request request = client.newRequest(UsageEventJson.ENDPOINT)
+            .header("Content-Encoding", "gzip")
+            .post(CoachingHttpClient.gzip(UsageEventJson.CONTENT_TYPE, "{\"events\":[]}"))
+            .build();
+        client.getClient().newCall(request).execute().close();
+
+        RecordedRequest upload = server.takeRequest();
+        assertEquals("Bearer user-token", upload.getHeader("Authorization"));
+        assertEquals("gzip", upload.getHeader("Content-Encoding"));
+        assertEquals("{\"events\":[]}", gunzip(upload.getBody().inputStream()));
+    }
+
+    private int post(String json) throws IOException {
+        return post(client.newRequest(UsageEventJson.ENDPOINT), json);
+    }
+
+    private int post(Request.Builder builder, String json) throws IOException {
+        Request request = builder
+            .post(RequestBody.create(MediaType.parse(UsageEventJson.CONTENT_TYPE), json))
+            .build();
+
+        Response response = client.getClient().newCall(request).execute();
+        try {
+            response.body().string();
+            return response.code();
+        } finally {
+            response.close();
+        }
+    }
+
+    private static String gunzip(InputStream compressed) throws IOException {
+        InputStream in = new GZIPInputStream(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+}
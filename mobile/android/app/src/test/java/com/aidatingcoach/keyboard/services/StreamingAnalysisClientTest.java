@@ -0,0 +1,111 @@
+/**
+ * AI Dating Coach - Streaming Analysis Client Tests
+ * Against MockWebServer: the analysis goes out authenticated on the
+ * connection the warm-up opened, and streamed suggestions reach the callback.
+ */
+
+package com.aidatingcoach.keyboard.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.aidatingcoach.keyboard.core.RequestQuota;
+import com.aidatingcoach.keyboard.models.MessageSuggestion;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class StreamingAnalysisClientTest {
+
+    private static final String STREAM =
+        "data: {\"type\":\"progress\",\"progress\":10}\n\n"
+        + "data: {\"type\":\"partial_result\",\"data\":{\"partial\":{\"text\":\"How was the hike?\",\"tone\":\"casual\"}}}\n\n"
+        + "data: {\"type\":\"final_result\",\"data\":{\"suggestions\":["
+        + "{\"text\":\"How was the hike?\",\"tone\":\"casual\"},{\"text\":\"Same here!\",\"tone\":\"flirty\"}]}}\n\n";
+
+    private MockWebServer server;
+    private CoachingHttpClient httpClient;
+    private final List<MessageSuggestion> partials = new ArrayList<>();
+    private List<MessageSuggestion> result;
+    private String error;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        httpClient = new CoachingHttpClient(server.url("/functions/v1/").toString(), "anon-key");
+        httpClient.setAccessToken("user-token");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.closeIdleConnections();
+        server.shutdown();
+    }
+
+    @Test
+    public void analysisReusesTheWarmedConnection() throws Exception {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody(STREAM));
+
+        httpClient.warmUp();
+        assertEquals("HEAD", server.takeRequest().getMethod());
+        while (httpClient.getClient().connectionPool().idleConnectionCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        new StreamingAnalysisClient(httpClient).analyzeConversation("going hiking this weekend", "tinder",
+            RequestQuota.Tier.FLAME, new Callback());
+
+        assertNull(error);
+        assertEquals(1, partials.size());
+        assertEquals(2, result.size());
+        assertEquals("Same here!", result.get(1).getText());
+        assertEquals(1, httpClient.getConnectionsOpened());
+
+        RecordedRequest analysis = server.takeRequest();
+        assertEquals("/functions/v1/" + StreamingAnalysisClient.ENDPOINT, analysis.getPath());
+        assertEquals("Bearer user-token", analysis.getHeader("Authorization"));
+        JSONObject body = new JSONObject(analysis.getBody().readUtf8());
+        assertEquals("premium", body.getString("userTier"));
+        assertEquals("going hiking this weekend", body.getJSONObject("data").getString("conversation"));
+    }
+
+    @Test
+    public void httpErrorsReachTheCallback() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        new StreamingAnalysisClient(httpClient).analyzeConversation("going hiking this weekend", "tinder",
+            RequestQuota.Tier.FLAME, new Callback());
+
+        assertEquals("Analysis failed with HTTP 500", error);
+        assertNull(result);
+    }
+
+    private final class Callback implements StreamingAnalysisCallback {
+        @Override
+        public void onPartial(MessageSuggestion suggestion) {
+            partials.add(suggestion);
+        }
+
+        @Override
+        public void onSuccess(List<MessageSuggestion> suggestions) {
+            result = suggestions;
+        }
+
+        @Override
+        public void onError(String message) {
+            error = message;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * AI Dating Coach - Analysis Gate Benchmark
+ * Throughput of the "enough words to analyze?" check, comparing the
+ * incremental word count with re-reading and splitting the context
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalysisGateBenchmark {
+
+    private static final int MIN_WORDS_FOR_ANALYSIS = 3;
+
+    @Param({"20", "200"})
+    public int contextLength;
+
+    private TextContextBuffer contextBuffer;
+    private String contextText;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < contextLength) {
+            text.append("so what are you up to later ");
+        }
+        text.setLength(contextLength);
+        contextText = text.toString();
+
+        contextBuffer = new TextContextBuffer(200);
+        contextBuffer.resync(contextText);
+    }
+
+    @Benchmark
+    public boolean incrementalWordCount() {
+        return contextBuffer.getWordCount() >= MIN_WORDS_FOR_ANALYSIS;
+    }
+
+    /**
+     * What the keyboard did before the context buffer: copy the context out
+     * and split it to count words.
+     */
+    @Benchmark
+    public boolean splitWordCount() {
+        String context = new StringBuilder(contextText).toString();
+        return context.trim().split("\\s+").length >= MIN_WORDS_FOR_ANALYSIS;
+    }
+
+    @Benchmark
+    public boolean resyncThenCount() {
+        contextBuffer.resync(contextText);
+        return contextBuffer.getWordCount() >= MIN_WORDS_FOR_ANALYSIS;
+    }
+}
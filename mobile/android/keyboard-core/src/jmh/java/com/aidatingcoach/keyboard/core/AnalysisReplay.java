@@ -0,0 +1,518 @@
+/**
+ * AI Dating Coach - Analysis Replay
+ * Replays a keystroke trace through the keyboard's analysis pipeline on a
+ * virtual clock, against FakeCoachingService, and reports how many requests
+ * the session issued, how many of them the user actually saw, time to
+ * suggestion and main-thread time. A whole typing session replays in
+ * milliseconds and the same seed always gives the same report, so it can gate
+ * changes to the pipeline:
+ *
+ *   ./gradlew :keyboard-core:replay --args="--platform hinge --max-waste 0.4"
+ *
+ * The replay hosts AnalysisPipeline, the same controller AIKeyboardService
+ * drives, and stands in for the rest of the keyboard: the text field, the
+ * suggestion cache, the network call and the per-frame strip update. On-device
+ * fallbacks, shown when a request is refused, fails or runs slow, count as a
+ * render. Not modeled: the instant on-device tier shown alongside every
+ * request, prefetch on open, and worker queueing (interactive work has
+ * threads reserved). Main-thread time is the real CPU cost of the core code
+ * on this JVM, not of Android view work.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class AnalysisReplay {
+
+    private static final long FRAME_US = 16667; // 60 Hz vsync
+    private static final long SUGGESTION_CACHE_MAX_BYTES = 256 * 1024;
+
+    // MARK: - Virtual Main Looper
+    private static final class Event implements Comparable<Event> {
+        final long atUs;
+        final long sequence;
+        final Runnable runnable;
+        final boolean onMainThread;
+        boolean cancelled = false;
+
+        Event(long atUs, long sequence, Runnable runnable, boolean onMainThread) {
+            this.atUs = atUs;
+            this.sequence = sequence;
+            this.runnable = runnable;
+            this.onMainThread = onMainThread;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (atUs != other.atUs) return atUs < other.atUs ? -1 : 1;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long nowUs = 0;
+    private long nextSequence = 0;
+
+    private Event postAt(long atUs, Runnable runnable, boolean onMainThread) {
+        Event event = new Event(atUs, nextSequence++, runnable, onMainThread);
+        events.add(event);
+        return event;
+    }
+
+    private void runUntil(long untilUs) {
+        while (!events.isEmpty() && events.peek().atUs <= untilUs) {
+            Event event = events.poll();
+            nowUs = event.atUs;
+            if (event.cancelled) continue;
+
+            if (event.onMainThread) {
+                timeMainThread(event.runnable);
+            } else {
+                event.runnable.run();
+            }
+        }
+        nowUs = Math.max(nowUs, untilUs);
+    }
+
+    private long nowMs() {
+        return nowUs / 1000;
+    }
+
+    // MARK: - Keyboard State
+    /**
+     * A fake call. Cancelling it before its response reaches the main thread
+     * counts as a cancellation; after that the response is counted as stale.
+     */
+    private static final class ReplayCall implements AnalysisPipeline.Call {
+        boolean cancelled = false;
+        boolean responded = false;
+
+        @Override
+        public boolean cancel() {
+            if (cancelled) return false;
+            cancelled = true;
+            return !responded;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final FakeCoachingService coachingService;
+    private final String platform;
+    private final AppProfile appProfile;
+    private final TextContextBuffer contextBuffer;
+    private final StringBuilder editor = new StringBuilder(); // What the app's text field holds
+    private final TypingCadence typingCadence = new TypingCadence();
+    private final SuggestionCache<List<String>> suggestionCache;
+    private final RequestQuota requestQuota;
+    private final KeyboardMetrics metrics = new KeyboardMetrics();
+    private final AnalysisPipeline<String> pipeline;
+    private long lastKeystrokeUs = 0;
+    private long lastSendGeneration = -1; // Requests up to this generation were issued before a send
+
+    // Frame dispatcher
+    private Event frameEvent;
+    private final List<Runnable> frameRunnables = new ArrayList<>();
+    private boolean pendingTimeToSuggestion = false;
+
+    // MARK: - Results
+    private long keys = 0;
+    private long sends = 0;
+    private long analysesRun = 0;
+    private long gated = 0;
+    private long cacheHits = 0;
+    private long shown = 0;
+    private long shownAfterSend = 0;
+    private long failed = 0;
+    private long fallbacks = 0;
+    private long mainThreadNanos = 0;
+    private final LatencyHistogram timeToSuggestion = new LatencyHistogram("time_to_suggestion");
+
+    public AnalysisReplay(String platform, FakeCoachingService coachingService, RequestQuota.Tier tier,
+                          boolean isHedgingEnabled) {
+        this.platform = platform;
+        this.coachingService = coachingService;
+        this.appProfile = AppProfile.forPlatform(platform);
+        this.contextBuffer = new TextContextBuffer(appProfile.getContextWindowChars());
+        this.requestQuota = new RequestQuota(tier, 0);
+        this.suggestionCache = new SuggestionCache<>(SUGGESTION_CACHE_MAX_BYTES, appProfile.getCacheTtlMs(),
+            new SuggestionCache.Weigher<List<String>>() {
+                @Override
+                public int weigh(List<String> suggestions) {
+                    int bytes = 0;
+                    for (String suggestion : suggestions) {
+                        bytes += 48 + 2 * suggestion.length();
+                    }
+                    return bytes;
+                }
+            });
+        this.pipeline = new AnalysisPipeline<>(createHost(), requestQuota, typingCadence, metrics);
+        pipeline.setAppProfile(appProfile);
+        pipeline.setHedgingEnabled(isHedgingEnabled);
+    }
+
+    // MARK: - Replay
+    public void replay(KeystrokeTrace trace) {
+        contextBuffer.reset(0);
+
+        for (int i = 0; i < trace.size(); i++) {
+            runUntil(nowUs + trace.getGapMs(i) * 1000);
+            final char key = trace.getKey(i);
+            timeMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    onKey(key);
+                }
+            });
+        }
+
+        // Let the last analysis and any in-flight request land
+        runUntil(Long.MAX_VALUE / 2);
+    }
+
+    private void onKey(char key) {
+        keys++;
+        lastKeystrokeUs = nowUs;
+        typingCadence.recordKeystroke(nowMs());
+
+        if (key == '\n') {
+            // The chat's send action: the field empties and nothing computed for it is shown
+            sends++;
+            pipeline.cancelPendingAnalysis();
+            pipeline.cancelInFlightRequest();
+            lastSendGeneration = pipeline.getGeneration();
+            editor.setLength(0);
+            contextBuffer.invalidate();
+        } else if (key == KeystrokeTrace.BACKSPACE) {
+            if (editor.length() > 0) {
+                editor.setLength(editor.length() - 1);
+            }
+            contextBuffer.deleteBeforeCursor(1);
+            pipeline.scheduleAnalysis(false);
+        } else {
+            editor.append(key);
+            contextBuffer.append(key);
+            pipeline.scheduleAnalysis(TypingCadence.isSentenceEnd(key));
+        }
+    }
+
+    private void performTextAnalysis() {
+        analysesRun++;
+        if (contextBuffer.isStale()) {
+            int start = Math.max(0, editor.length() - contextBuffer.capacity());
+            contextBuffer.resync(editor.subSequence(start, editor.length()));
+        }
+
+        if (contextBuffer.getWordCount() < appProfile.getMinWordsForAnalysis()) {
+            gated++;
+            return;
+        }
+
+        final String context = contextBuffer.toString();
+        final long cacheKey = SuggestionCache.keyForContext(context, platform);
+        if (suggestionCache.get(cacheKey) != null) {
+            cacheHits++;
+            renderSuggestions();
+            return;
+        }
+
+        if (!pipeline.requestAnalysis(context, platform, cacheKey)) {
+            showFallbackSuggestions();
+        }
+    }
+
+    private AnalysisPipeline.Call startAttempt(final AnalysisPipeline.Request<String> request, final int attempt) {
+        final ReplayCall call = new ReplayCall();
+        final long startUs = nowUs;
+        final FakeCoachingService.Response response = coachingService.analyze(request.getContext(), platform);
+        postAt(nowUs + response.latencyMs * 1000, new Runnable() {
+            @Override
+            public void run() {
+                // Worker thread: a cancelled call was interrupted and never calls back
+                if (call.cancelled) return;
+                call.responded = true;
+                metrics.network.recordMicros(nowUs - startUs);
+
+                postToNextFrame(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (response.success) {
+                            suggestionCache.put(request.getCacheKey(), response.suggestions, appProfile.getCacheTtlMs());
+                            pipeline.onAttemptSuccess(request, attempt, response.suggestions);
+                        } else {
+                            pipeline.onAttemptError(request, attempt);
+                        }
+                    }
+                });
+            }
+        }, false);
+        return call;
+    }
+
+    private void handleResult(AnalysisPipeline.Request<String> request) {
+        shown++;
+        if (request.getGeneration() <= lastSendGeneration) {
+            shownAfterSend++;
+        }
+        renderSuggestions();
+    }
+
+    private AnalysisPipeline.Host<String> createHost() {
+        return new AnalysisPipeline.Host<String>() {
+            @Override
+            public long uptimeMillis() {
+                return nowMs();
+            }
+
+            @Override
+            public long currentTimeMillis() {
+                return nowMs();
+            }
+
+            @Override
+            public void postDelayed(Runnable runnable, long delayMs) {
+                postAt(nowUs + delayMs * 1000, runnable, true);
+            }
+
+            @Override
+            public void removeCallbacks(Runnable runnable) {
+                for (Event event : events) {
+                    if (event.runnable == runnable) {
+                        event.cancelled = true;
+                    }
+                }
+            }
+
+            @Override
+            public void onAnalysisDue() {
+                performTextAnalysis();
+            }
+
+            @Override
+            public AnalysisPipeline.Call startAttempt(AnalysisPipeline.Request<String> request, int attempt) {
+                return AnalysisReplay.this.startAttempt(request, attempt);
+            }
+
+            @Override
+            public void onAnalysisPartial(String suggestion, boolean first) {
+                // The fake service doesn't stream
+            }
+
+            @Override
+            public void onAnalysisResult(AnalysisPipeline.Request<String> request, List<String> suggestions) {
+                handleResult(request);
+            }
+
+            @Override
+            public void onAnalysisFailed(AnalysisPipeline.Request<String> request) {
+                failed++;
+                showFallbackSuggestions();
+            }
+
+            @Override
+            public void onAnalysisSlow(AnalysisPipeline.Request<String> request) {
+                showFallbackSuggestions();
+            }
+
+            @Override
+            public void onAnalysisCancelled() {
+                // No spinner to hide
+            }
+        };
+    }
+
+    private void showFallbackSuggestions() {
+        fallbacks++;
+        renderSuggestions();
+    }
+
+    private void renderSuggestions() {
+        pendingTimeToSuggestion = true;
+        postToNextFrame(null);
+    }
+
+    // MARK: - Frame Dispatcher
+    private void postToNextFrame(Runnable runnable) {
+        if (runnable != null) {
+            frameRunnables.add(runnable);
+        }
+        if (frameEvent == null) {
+            long nextVsyncUs = (nowUs / FRAME_US + 1) * FRAME_US;
+            frameEvent = postAt(nextVsyncUs, new Runnable() {
+                @Override
+                public void run() {
+                    frameEvent = null;
+                    onFrame();
+                }
+            }, true);
+        }
+    }
+
+    private void onFrame() {
+        List<Runnable> batch = new ArrayList<>(frameRunnables);
+        frameRunnables.clear();
+        for (Runnable runnable : batch) {
+            runnable.run();
+        }
+
+        if (pendingTimeToSuggestion) {
+            pendingTimeToSuggestion = false;
+            timeToSuggestion.recordMicros(nowUs - lastKeystrokeUs);
+        }
+    }
+
+    private void timeMainThread(Runnable work) {
+        long startNanos = System.nanoTime();
+        work.run();
+        mainThreadNanos += System.nanoTime() - startNanos;
+    }
+
+    // MARK: - Report
+    public double getWasteRatio() {
+        long issued = getIssued();
+        return issued == 0 ? 0 : (double) (metrics.getRequestsCancelled() + metrics.getStaleResults()
+            + shownAfterSend) / issued;
+    }
+
+    // Every attempt that went out, hedges included
+    private long getIssued() {
+        return metrics.getRequestsIssued() + metrics.getRequestsHedged();
+    }
+
+    public long getShownAfterSend() {
+        return shownAfterSend;
+    }
+
+    public long getTimeToSuggestionP95Ms() {
+        return timeToSuggestion.getPercentileMicros(95) / 1000;
+    }
+
+    public String getReport(KeystrokeTrace trace) {
+        StringBuilder report = new StringBuilder();
+        report.append(appProfile).append('\n')
+            .append("trace keys=").append(keys)
+            .append(" sends=").append(sends)
+            .append(" duration=").append(trace.getDurationMs() / 1000).append("s\n")
+            .append("analysis runs=").append(analysesRun)
+            .append(" gated=").append(gated)
+            .append(" cache_hits=").append(cacheHits).append('\n')
+            .append("requests issued=").append(getIssued())
+            .append(" shown=").append(shown)
+            .append(" cancelled=").append(metrics.getRequestsCancelled())
+            .append(" stale=").append(metrics.getStaleResults())
+            .append(" failed=").append(failed)
+            .append(" shown_after_send=").append(shownAfterSend)
+            .append(" waste=").append(Math.round(getWasteRatio() * 100)).append("%\n")
+            .append("refused throttled=").append(metrics.getRequestsThrottled())
+            .append(" short_circuited=").append(metrics.getRequestsShortCircuited())
+            .append(" hedged=").append(metrics.getRequestsHedged())
+            .append(" hedge_wins=").append(metrics.getHedgeWins())
+            .append(" fallbacks=").append(fallbacks).append('\n')
+            .append(requestQuota).append('\n')
+            .append(pipeline.getCircuitBreaker()).append('\n');
+        timeToSuggestion.appendSummary(report);
+        report.append('\n')
+            .append("main_thread total=").append(mainThreadNanos / 1000).append("us")
+            .append(" per_key=").append(keys == 0 ? 0 : mainThreadNanos / keys).append("ns");
+        return report.toString();
+    }
+
+    // MARK: - Command Line
+    /**
+     * Options, all optional:
+     *   --trace FILE            recorded trace; otherwise a synthetic session
+     *   --platform ID           tinder, bumble, hinge or anything else (analysis off)
+     *   --messages N            messages in the synthetic session (6)
+     *   --gap-ms MS             mean inter-key gap of the synthetic session (220)
+     *   --latency-ms MS         median service latency (450)
+     *   --latency-sigma S       log-normal spread of service latency (0.5)
+     *   --error-rate P          share of calls that fail fast (0.02)
+     *   --timeout-rate P        share of calls that hang until the timeout (0.005)
+     *   --timeout-ms MS         client read timeout (20000)
+     *   --seed N                seed for the trace and the service (1)
+     *   --tier ID               spark, flame or blaze; sizes the request quota (flame)
+     *   --hedge BOOL            hedge analyses slower than the observed p95 (false)
+     *   --max-waste P           fail if cancelled + stale + shown-after-send exceed P of issued
+     *   --max-p95-ms MS         fail if time-to-suggestion p95 exceeds MS
+     *
+     * Any suggestion shown after its message was sent fails the run.
+     */
+    public static void main(String[] args) throws IOException {
+        String tracePath = null;
+        String platform = "tinder";
+        int messages = 6;
+        double gapMs = 220;
+        double latencyMs = 450;
+        double latencySigma = 0.5;
+        double errorRate = 0.02;
+        double timeoutRate = 0.005;
+        long timeoutMs = 20000;
+        long seed = 1;
+        RequestQuota.Tier tier = RequestQuota.Tier.FLAME;
+        boolean hedge = false;
+        double maxWaste = -1;
+        long maxP95Ms = -1;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+            String value = args[++i];
+            switch (option) {
+                case "--trace": tracePath = value; break;
+                case "--platform": platform = value; break;
+                case "--messages": messages = Integer.parseInt(value); break;
+                case "--gap-ms": gapMs = Double.parseDouble(value); break;
+                case "--latency-ms": latencyMs = Double.parseDouble(value); break;
+                case "--latency-sigma": latencySigma = Double.parseDouble(value); break;
+                case "--error-rate": errorRate = Double.parseDouble(value); break;
+                case "--timeout-rate": timeoutRate = Double.parseDouble(value); break;
+                case "--timeout-ms": timeoutMs = Long.parseLong(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--tier": tier = RequestQuota.Tier.fromId(value, null); break;
+                case "--hedge": hedge = Boolean.parseBoolean(value); break;
+                case "--max-waste": maxWaste = Double.parseDouble(value); break;
+                case "--max-p95-ms": maxP95Ms = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        if (tier == null) throw new IllegalArgumentException("Unknown tier");
+
+        KeystrokeTrace trace = tracePath != null
+            ? KeystrokeTrace.load(tracePath, platform)
+            : KeystrokeTrace.synthetic(platform, messages, gapMs, seed);
+        FakeCoachingService service = new FakeCoachingService(latencyMs, latencySigma, errorRate,
+            timeoutRate, timeoutMs, seed);
+
+        AnalysisReplay replay = new AnalysisReplay(trace.getPlatform(), service, tier, hedge);
+        replay.replay(trace);
+        System.out.println(replay.getReport(trace));
+
+        // Not a tunable gate: a suggestion for a message already sent is always a bug
+        boolean failedGate = false;
+        if (replay.getShownAfterSend() > 0) {
+            System.err.println("FAIL shown_after_send " + replay.getShownAfterSend() + " > 0");
+            failedGate = true;
+        }
+        if (maxWaste >= 0 && replay.getWasteRatio() > maxWaste) {
+            System.err.println("FAIL waste " + Math.round(replay.getWasteRatio() * 100) + "% > "
+                + Math.round(maxWaste * 100) + "%");
+            failedGate = true;
+        }
+        if (maxP95Ms >= 0 && replay.getTimeToSuggestionP95Ms() > maxP95Ms) {
+            System.err.println("FAIL time_to_suggestion p95 " + replay.getTimeToSuggestionP95Ms() + "ms > "
+                + maxP95Ms + "ms");
+            failedGate = true;
+        }
+        if (failedGate) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * AI Dating Coach - Fake Coaching Service
+ * Stand-in for AICoachingService in replays. Latency is log-normal around a
+ * median, the usual shape for a mobile round-trip; a share of calls fail
+ * quickly and another share hang until the client's read timeout. Seeded, so
+ * a replay is repeatable.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FakeCoachingService {
+
+    private static final int SUGGESTION_COUNT = 3;
+
+    public static final class Response {
+        public final long latencyMs;
+        public final boolean success;
+        public final List<String> suggestions;
+
+        Response(long latencyMs, boolean success, List<String> suggestions) {
+            this.latencyMs = latencyMs;
+            this.success = success;
+            this.suggestions = suggestions;
+        }
+    }
+
+    private final Random random;
+    private final double medianLatencyMs;
+    private final double latencySigma;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final long timeoutMs;
+    private long callCount = 0;
+
+    public FakeCoachingService(double medianLatencyMs, double latencySigma, double errorRate,
+                               double timeoutRate, long timeoutMs, long seed) {
+        this.random = new Random(seed);
+        this.medianLatencyMs = medianLatencyMs;
+        this.latencySigma = latencySigma;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Outcome of one analyzeConversation call: how long it takes and what it
+     * returns. The caller schedules delivery on its virtual clock.
+     */
+    public Response analyze(String context, String platform) {
+        callCount++;
+        double outcome = random.nextDouble();
+
+        if (outcome < timeoutRate) {
+            return new Response(timeoutMs, false, null);
+        }
+
+        long latencyMs = Math.max(1, Math.round(medianLatencyMs * Math.exp(latencySigma * random.nextGaussian())));
+        if (outcome < timeoutRate + errorRate) {
+            // Server errors usually come back faster than a full analysis
+            return new Response(Math.max(1, latencyMs / 4), false, null);
+        }
+
+        List<String> suggestions = new ArrayList<>(SUGGESTION_COUNT);
+        for (int i = 0; i < SUGGESTION_COUNT; i++) {
+            suggestions.add(platform + " reply " + callCount + "." + i + " to " + context.length() + " chars");
+        }
+        return new Response(latencyMs, true, suggestions);
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+}
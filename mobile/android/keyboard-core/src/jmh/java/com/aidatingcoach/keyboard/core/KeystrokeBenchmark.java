@@ -0,0 +1,77 @@
+/**
+ * AI Dating Coach - Keystroke Benchmark
+ * Per-keystroke cost of the keyboard's in-process bookkeeping: case handling,
+ * context tracking, cadence learning and the analysis gate
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeystrokeBenchmark {
+
+    private static final int MIN_WORDS_FOR_ANALYSIS = 3;
+    private static final String SAMPLE_TEXT =
+        "hey! i just got back from a weekend trip up the coast with my dog. "
+        + "we hiked most of saturday and found this tiny coffee place by the water. "
+        + "what did you get up to this weekend? ";
+
+    private TextContextBuffer contextBuffer;
+    private TypingCadence typingCadence;
+    private ShiftState shiftState;
+    private char[] keys;
+    private int nextKey;
+    private long clockMs;
+
+    @Setup
+    public void setUp() {
+        contextBuffer = new TextContextBuffer(200);
+        contextBuffer.resync("");
+        typingCadence = new TypingCadence();
+        shiftState = new ShiftState();
+        keys = SAMPLE_TEXT.toCharArray();
+        nextKey = 0;
+        clockMs = 0;
+    }
+
+    @Benchmark
+    public boolean characterKey() {
+        char key = keys[nextKey];
+        nextKey = (nextKey + 1) % keys.length;
+        clockMs += 180;
+
+        typingCadence.recordKeystroke(clockMs);
+        contextBuffer.append(shiftState.apply(key));
+        return contextBuffer.getWordCount() >= MIN_WORDS_FOR_ANALYSIS;
+    }
+
+    @Benchmark
+    public boolean characterThenDelete() {
+        char key = keys[nextKey];
+        nextKey = (nextKey + 1) % keys.length;
+        clockMs += 180;
+
+        typingCadence.recordKeystroke(clockMs);
+        contextBuffer.append(shiftState.apply(key));
+        contextBuffer.deleteBeforeCursor(1);
+        return contextBuffer.getWordCount() >= MIN_WORDS_FOR_ANALYSIS;
+    }
+
+    @Benchmark
+    public long analysisDelay() {
+        clockMs += 180;
+        typingCadence.recordKeystroke(clockMs);
+        return typingCadence.getAnalysisDelayMs(TypingCadence.isSentenceEnd(keys[nextKey]));
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * AI Dating Coach - Keystroke Trace
+ * A recorded typing session: keys with the real gap before each one. Read from
+ * a text file with one key per line,
+ *
+ *   # platform=hinge
+ *   0 h
+ *   182 e
+ *   143 y
+ *   210 SPACE
+ *   96 BACKSPACE
+ *
+ * or generated from a seeded model of human typing (bursts, typos corrected
+ * with backspace, thinking pauses and longer pauses between messages).
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class KeystrokeTrace {
+
+    public static final char BACKSPACE = '\b';
+
+    private static final String[] SAMPLE_MESSAGES = {
+        "hey! how was your weekend?",
+        "no way, i love that place. did you try the tacos?",
+        "haha fair. i'm more of a coffee person honestly. what got you into climbing?",
+        "that sounds amazing. we should go sometime",
+        "i'm free thursday after work if you are. maybe around 7?",
+        "perfect, it's a date. send me the address when you get a chance"
+    };
+
+    private final String platform;
+    private final long[] gapsMs;
+    private final char[] keys;
+
+    private KeystrokeTrace(String platform, long[] gapsMs, char[] keys) {
+        this.platform = platform;
+        this.gapsMs = gapsMs;
+        this.keys = keys;
+    }
+
+    // MARK: - Loading
+    public static KeystrokeTrace load(String path, String defaultPlatform) throws IOException {
+        String platform = defaultPlatform;
+        List<Long> gaps = new ArrayList<>();
+        StringBuilder keys = new StringBuilder();
+
+        BufferedReader reader = new BufferedReader(new FileReader(path));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (line.startsWith("#")) {
+                    String directive = line.substring(1).trim();
+                    if (directive.startsWith("platform=")) {
+                        platform = directive.substring("platform=".length()).trim();
+                    }
+                    continue;
+                }
+
+                int split = line.indexOf(' ');
+                if (split < 0) throw new IOException(path + ":" + lineNumber + ": expected '<gapMs> <key>'");
+                gaps.add(Long.parseLong(line.substring(0, split)));
+                keys.append(parseKey(line.substring(split + 1), path, lineNumber));
+            }
+        } finally {
+            reader.close();
+        }
+
+        long[] gapsMs = new long[gaps.size()];
+        for (int i = 0; i < gapsMs.length; i++) {
+            gapsMs[i] = gaps.get(i);
+        }
+        return new KeystrokeTrace(platform, gapsMs, keys.toString().toCharArray());
+    }
+
+    /**
+     * A session typing {@code messages} of the sample conversation, with
+     * inter-key gaps drawn around {@code meanGapMs}.
+     */
+    public static KeystrokeTrace synthetic(String platform, int messages, double meanGapMs, long seed) {
+        Random random = new Random(seed);
+        List<Long> gaps = new ArrayList<>();
+        StringBuilder keys = new StringBuilder();
+        long nextGap = 0;
+
+        for (int m = 0; m < messages; m++) {
+            String message = SAMPLE_MESSAGES[m % SAMPLE_MESSAGES.length];
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+
+                // Occasionally hit a neighbouring key and correct it
+                if (Character.isLetter(c) && random.nextDouble() < 0.03) {
+                    gaps.add(nextGap);
+                    keys.append((char) ('a' + random.nextInt(26)));
+                    gaps.add(typingGap(random, meanGapMs) + 150);
+                    keys.append(BACKSPACE);
+                    nextGap = typingGap(random, meanGapMs);
+                }
+
+                gaps.add(nextGap);
+                keys.append(c);
+
+                nextGap = typingGap(random, meanGapMs);
+                if (c == ' ' && random.nextDouble() < 0.06) {
+                    nextGap += 800 + random.nextInt(1700); // Thinking mid-message
+                }
+            }
+
+            // Send, then read the reply before typing the next message
+            gaps.add(nextGap);
+            keys.append('\n');
+            nextGap = 4000 + random.nextInt(8000);
+        }
+
+        long[] gapsMs = new long[gaps.size()];
+        for (int i = 0; i < gapsMs.length; i++) {
+            gapsMs[i] = gaps.get(i);
+        }
+        return new KeystrokeTrace(platform, gapsMs, keys.toString().toCharArray());
+    }
+
+    // MARK: - Access
+    public String getPlatform() {
+        return platform;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long getGapMs(int index) {
+        return gapsMs[index];
+    }
+
+    public char getKey(int index) {
+        return keys[index];
+    }
+
+    public long getDurationMs() {
+        long total = 0;
+        for (long gap : gapsMs) {
+            total += gap;
+        }
+        return total;
+    }
+
+    // MARK: - Private Helpers
+    private static char parseKey(String token, String path, int lineNumber) throws IOException {
+        switch (token) {
+            case "SPACE":
+                return ' ';
+            case "ENTER":
+                return '\n';
+            case "BACKSPACE":
+                return BACKSPACE;
+            default:
+                if (token.length() != 1) throw new IOException(path + ":" + lineNumber + ": unknown key " + token);
+                return token.charAt(0);
+        }
+    }
+
+    /**
+     * Log-normal around the mean, the usual shape of inter-key intervals.
+     */
+    private static long typingGap(Random random, double meanGapMs) {
+        double sigma = 0.45;
+        double mu = Math.log(meanGapMs) - sigma * sigma / 2;
+        return Math.max(30, Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * AI Dating Coach - Suggestion Codec Benchmark
+ * Binary suggestion payloads versus the JSON the coaching API returns today:
+ * payload size is printed at setup, decode time and allocation come from JMH
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SuggestionCodecBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[] TONES = {"CASUAL", "ENTHUSIASTIC", "FLIRTY", "THOUGHTFUL"};
+    private static final String[] REASONINGS = {
+        "Asking an open question about something they mentioned keeps the conversation going",
+        "Light teasing shows interest without putting pressure on the reply",
+        "Sharing a small detail about yourself invites them to share back"
+    };
+
+    private List<SuggestionRecord> suggestions;
+    private byte[] jsonPayload;
+    private byte[] binaryPayload;
+
+    private final SuggestionDecoder decoder = new SuggestionDecoder();
+    private final SuggestionRecord[] reusable = new SuggestionRecord[8];
+
+    @Setup
+    public void setUp() throws Exception {
+        suggestions = new ArrayList<>();
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < 8; i++) {
+            SuggestionRecord record = new SuggestionRecord(
+                "That sounds amazing! What was the best part of the trip? #" + i,
+                i % TONES.length,
+                6.5 + (i % 4) * 0.75,
+                REASONINGS[i % REASONINGS.length]
+            );
+            suggestions.add(record);
+            reusable[i] = new SuggestionRecord();
+
+            JSONObject json = new JSONObject();
+            json.put("text", record.getText());
+            json.put("tone", TONES[record.getToneOrdinal()]);
+            json.put("engagementPrediction", record.getEngagementPrediction());
+            json.put("reasoning", record.getReasoning());
+            array.put(json);
+        }
+
+        jsonPayload = new JSONObject().put("suggestions", array).toString().getBytes(UTF_8);
+        binaryPayload = SuggestionCodec.encode(suggestions);
+        System.out.println("\npayload bytes: json=" + jsonPayload.length + " binary=" + binaryPayload.length);
+    }
+
+    @Benchmark
+    public int decodeJson() throws Exception {
+        JSONArray array = new JSONObject(new String(jsonPayload, UTF_8)).getJSONArray("suggestions");
+        List<SuggestionRecord> out = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            int tone = 0;
+            for (int t = 0; t < TONES.length; t++) {
+                if (TONES[t].equals(json.getString("tone"))) tone = t;
+            }
+            out.add(new SuggestionRecord(
+                json.getString("text"),
+                tone,
+                json.getDouble("engagementPrediction"),
+                json.getString("reasoning")
+            ));
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int decodeBinary() throws IOException {
+        int count = decoder.begin(new ByteArrayInputStream(binaryPayload));
+        for (int i = 0; i < count; i++) {
+            decoder.next(reusable[i]);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return SuggestionCodec.encode(suggestions);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * AI Dating Coach - Suggestion Lookup Benchmark
+ * Cost of the local paths that run before any network request: cache key
+ * hashing, cache hits and instant-tier phrase lookup
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SuggestionLookupBenchmark {
+
+    private static final String CONTEXT = "Hey! I just got back from a weekend trip with my dog";
+    private static final String PLATFORM = "tinder";
+
+    private SuggestionCache<String> suggestionCache;
+    private PhraseIndex phraseIndex;
+    private long cachedKey;
+    private final List<PhraseIndex.Phrase> phrases = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        suggestionCache = new SuggestionCache<>(256 * 1024, 60 * 60 * 1000, new SuggestionCache.Weigher<String>() {
+            @Override
+            public int weigh(String value) {
+                return 2 * value.length();
+            }
+        });
+        cachedKey = SuggestionCache.keyFor(CONTEXT, PLATFORM);
+        suggestionCache.put(cachedKey, "cached suggestions");
+
+        StringBuilder table = new StringBuilder();
+        String[] triggers = {"*", "weekend", "trip", "dog", "my dog", "with my dog", "coffee", "work"};
+        String[] tones = {"CASUAL", "ENTHUSIASTIC", "FLIRTY", "THOUGHTFUL"};
+        for (String trigger : triggers) {
+            for (String tone : tones) {
+                table.append(trigger).append('\t').append(tone).append("\t7.5\t")
+                    .append("Reply about ").append(trigger).append('\t')
+                    .append("Keeps the conversation going\n");
+            }
+        }
+        phraseIndex = PhraseIndex.load(new StringReader(table.toString()));
+    }
+
+    @Benchmark
+    public long cacheKey() {
+        return SuggestionCache.keyFor(CONTEXT, PLATFORM);
+    }
+
+    @Benchmark
+    public String cacheHit() {
+        return suggestionCache.get(SuggestionCache.keyFor(CONTEXT, PLATFORM));
+    }
+
+    @Benchmark
+    public int instantSuggestions() {
+        phrases.clear();
+        return phraseIndex.suggest(CONTEXT, null, 3, phrases);
+    }
+}
@@ -0,0 +1,518 @@
+/**
+ * AI Dating Coach - Analysis Pipeline
+ * Decides when a coaching request goes out and which results reach the strip:
+ * the typing debounce, generation tags that retire results for text the user
+ * has since changed, cancellation, the circuit breaker and request quota in
+ * front of the network, and the optional hedge and slow-call timer behind it.
+ *
+ * Everything platform-specific stays with the host: main-thread timers,
+ * clocks, the network call, caching and the strip. AIKeyboardService hosts it
+ * on a Handler; AnalysisReplay hosts the same code on a virtual clock. Main
+ * thread only; the host reports results back on the main thread.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.List;
+
+public class AnalysisPipeline<T> {
+
+    /**
+     * What the pipeline needs from the keyboard.
+     */
+    public interface Host<T> {
+        // Monotonic time for the breaker; wall-clock time for the quota
+        long uptimeMillis();
+
+        long currentTimeMillis();
+
+        // Main-thread timers, with Handler semantics
+        void postDelayed(Runnable runnable, long delayMs);
+
+        void removeCallbacks(Runnable runnable);
+
+        /**
+         * The typing pause has elapsed: read the context and serve it from
+         * cache, or call {@link AnalysisPipeline#requestAnalysis}.
+         */
+        void onAnalysisDue();
+
+        /**
+         * Send one attempt of a request. Its outcome comes back through
+         * {@link AnalysisPipeline#onAttemptPartial}, {@link AnalysisPipeline#onAttemptSuccess} or
+         * {@link AnalysisPipeline#onAttemptError}, on the main thread.
+         */
+        Call startAttempt(Request<T> request, int attempt);
+
+        /**
+         * A streamed suggestion for the current request. The first one of a
+         * request replaces whatever the strip showed.
+         */
+        void onAnalysisPartial(T suggestion, boolean first);
+
+        void onAnalysisResult(Request<T> request, List<T> suggestions);
+
+        void onAnalysisFailed(Request<T> request);
+
+        /**
+         * Nothing back after SLOW_CALL_MS. The request keeps running and its
+         * results still arrive through onAnalysisResult.
+         */
+        void onAnalysisSlow(Request<T> request);
+
+        // The request the strip was waiting for was dropped
+        void onAnalysisCancelled();
+    }
+
+    /**
+     * A coaching call in flight.
+     */
+    public interface Call {
+        /**
+         * Stop the call. Returns false if it had already completed.
+         */
+        boolean cancel();
+
+        /**
+         * Whether the call was dropped before it ran, such as by a full work
+         * queue. A dropped call never reports back.
+         */
+        boolean isCancelled();
+    }
+
+    // Circuit breaker: opens when half of the recent calls failed or took over SLOW_CALL_MS
+    public static final long SLOW_CALL_MS = 4000;
+    private static final int BREAKER_WINDOW = 20;
+    private static final int BREAKER_MIN_CALLS = 6;
+    private static final double BREAKER_FAILURE_RATE = 0.5;
+    private static final long BREAKER_OPEN_MS = 5000;
+    private static final long BREAKER_MAX_OPEN_MS = 60 * 1000;
+
+    // Hedging (opt-in): an analysis still running past the observed network p95 gets a
+    // second attempt. Mid-draft requests are usually superseded before then; see AnalysisReplay --hedge.
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final long HEDGE_MIN_DELAY_MS = 250;
+
+    private static final int NO_OWNER = -1;
+
+    private final Host<T> host;
+    private final RequestQuota requestQuota;
+    private final TypingCadence typingCadence;
+    private final KeyboardMetrics metrics;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(BREAKER_WINDOW, BREAKER_MIN_CALLS,
+        BREAKER_FAILURE_RATE, SLOW_CALL_MS, BREAKER_OPEN_MS, BREAKER_MAX_OPEN_MS);
+
+    private AppProfile appProfile = AppProfile.DISABLED;
+    private boolean isHedgingEnabled = false;
+    private boolean isAnalyzing = false;
+    private long generation = 0; // Bumped whenever in-flight results become stale
+    private Request<T> request; // Null when nothing is in flight
+
+    private final Runnable analysisRunnable = new Runnable() {
+        @Override
+        public void run() {
+            host.onAnalysisDue();
+        }
+    };
+    private final Runnable hedgeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            hedgeAnalysis();
+        }
+    };
+    private final Runnable slowCallRunnable = new Runnable() {
+        @Override
+        public void run() {
+            handleSlowCall();
+        }
+    };
+
+    /**
+     * @param requestQuota  the client-side copy of the server's limits
+     * @param typingCadence the user's rhythm, which sets the debounce
+     * @param metrics       counts requests; its network histogram times the hedge
+     */
+    public AnalysisPipeline(Host<T> host, RequestQuota requestQuota, TypingCadence typingCadence,
+                            KeyboardMetrics metrics) {
+        this.host = host;
+        this.requestQuota = requestQuota;
+        this.typingCadence = typingCadence;
+        this.metrics = metrics;
+    }
+
+    // MARK: - Configuration
+    public void setAppProfile(AppProfile appProfile) {
+        this.appProfile = appProfile;
+    }
+
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        isHedgingEnabled = hedgingEnabled;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    // MARK: - Scheduling
+    /**
+     * The text changed. Drop what was computed for the old text and analyze
+     * after a pause relative to this user's rhythm, or early at the end of a
+     * sentence.
+     */
+    public void scheduleAnalysis(boolean sentenceEnded) {
+        if (!appProfile.isAnalysisEnabled()) return;
+
+        cancelInFlightRequest();
+        cancelPendingAnalysis();
+
+        long delayMs = appProfile.clampDebounceMs(typingCadence.getAnalysisDelayMs(sentenceEnded), sentenceEnded);
+        host.postDelayed(analysisRunnable, delayMs);
+    }
+
+    public void cancelPendingAnalysis() {
+        host.removeCallbacks(analysisRunnable);
+    }
+
+    /**
+     * Retire the current generation: results still on their way are dropped,
+     * and the request behind them is cancelled.
+     */
+    public void cancelInFlightRequest() {
+        generation++;
+        cancelRequest();
+
+        if (isAnalyzing) {
+            isAnalyzing = false;
+            host.onAnalysisCancelled();
+        }
+    }
+
+    public boolean isAnalyzing() {
+        return isAnalyzing;
+    }
+
+    public boolean isRequestInFlight() {
+        return request != null;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    // MARK: - Requests
+    /**
+     * Send an analysis of {@code context}, hedged if enabled. Returns false,
+     * with the refusal counted, if the breaker or the quota keeps it
+     * on-device, or if the work queue dropped it.
+     */
+    public boolean requestAnalysis(String context, String platform, long cacheKey) {
+        if (!admitRequest() || !startRequest(context, platform, cacheKey, null)) return false;
+
+        long hedgeDelayMs = getHedgeDelayMs();
+        if (hedgeDelayMs > 0) {
+            host.postDelayed(hedgeRunnable, hedgeDelayMs);
+        }
+        return true;
+    }
+
+    /**
+     * Ask for suggestions beyond {@code shown}. Not hedged: the user asked for
+     * it once, and the strip already has suggestions.
+     */
+    public boolean requestMoreSuggestions(String context, String platform, List<T> shown) {
+        return admitRequest() && startRequest(context, platform, 0, shown);
+    }
+
+    /**
+     * Whether a speculative request, such as a prefetch, may go out. Never
+     * the breaker's probe, and not worth quota the user can't spare.
+     */
+    public boolean admitSpeculativeRequest() {
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED && acquireRequestQuota();
+    }
+
+    // MARK: - Attempt Outcomes
+    public void onAttemptPartial(Request<T> from, int attempt, T suggestion) {
+        if (from != request || !from.claim(attempt)) return;
+
+        boolean first = !from.streaming;
+        from.streaming = true;
+        host.onAnalysisPartial(suggestion, first);
+    }
+
+    public void onAttemptSuccess(Request<T> from, int attempt, List<T> suggestions) {
+        from.outstanding--;
+        if (!from.claim(attempt)) {
+            metrics.countStaleResult(); // The other attempt already answered
+            return;
+        }
+
+        recordOutcome(from, true);
+        if (attempt == 1) {
+            metrics.countHedgeWin();
+        }
+        cancelCall(from, 1 - attempt);
+
+        if (from != request) {
+            metrics.countStaleResult();
+            return;
+        }
+        finishRequest();
+        host.onAnalysisResult(from, suggestions);
+    }
+
+    public void onAttemptError(Request<T> from, int attempt) {
+        from.outstanding--;
+        // Superseded or already answered: the interrupted call says nothing about the backend
+        if (from != request) return;
+
+        if (from.outstanding > 0) {
+            // The other attempt may still answer; its results start the strip over
+            if (from.owner == attempt) {
+                from.owner = NO_OWNER;
+                from.streaming = false;
+            }
+            return;
+        }
+        if (from.owner != NO_OWNER && from.owner != attempt) return;
+
+        recordOutcome(from, false);
+        finishRequest();
+        host.onAnalysisFailed(from);
+    }
+
+    // MARK: - Backend Health
+    /**
+     * Breaker and quota checks before a coaching request goes out. Returns
+     * false, with the refusal counted, if it must stay on-device.
+     */
+    private boolean admitRequest() {
+        if (!circuitBreaker.tryAcquire(host.uptimeMillis())) {
+            metrics.countRequestShortCircuited();
+            return false;
+        }
+        if (!acquireRequestQuota()) {
+            // Let the next request probe instead
+            circuitBreaker.onCancelled();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean acquireRequestQuota() {
+        if (requestQuota.tryAcquire(host.currentTimeMillis()) == RequestQuota.Denial.NONE) {
+            return true;
+        }
+        metrics.countRequestThrottled();
+        return false;
+    }
+
+    /**
+     * The hedge goes out after the observed network p95, so roughly one
+     * analysis in twenty gets a second attempt. Returns 0 for no hedge.
+     */
+    private long getHedgeDelayMs() {
+        if (!isHedgingEnabled || circuitBreaker.getState() != CircuitBreaker.State.CLOSED) return 0;
+        if (metrics.network.getCount() < HEDGE_MIN_SAMPLES) return 0;
+
+        long delayMs = Math.max(HEDGE_MIN_DELAY_MS, metrics.network.getPercentileMicros(95) / 1000);
+        return delayMs < SLOW_CALL_MS ? delayMs : 0;
+    }
+
+    private void hedgeAnalysis() {
+        Request<T> current = request;
+        if (current == null || current.owner != NO_OWNER || current.outstanding != 1) return;
+
+        // A hedge is a real request: it needs a healthy backend and quota to spare
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) return;
+        if (requestQuota.tryAcquire(host.currentTimeMillis()) != RequestQuota.Denial.NONE) return;
+
+        metrics.countRequestHedged();
+        startAttempt(current, 1);
+    }
+
+    /**
+     * Count a call with nothing back after SLOW_CALL_MS against the breaker
+     * now rather than at the read timeout.
+     */
+    private void handleSlowCall() {
+        Request<T> current = request;
+        if (current == null || current.owner != NO_OWNER) return;
+
+        if (current.isDropped()) {
+            // Evicted from the work queue after it was accepted; nothing to hear back from
+            dropRequest(current);
+            host.onAnalysisFailed(current);
+            return;
+        }
+
+        recordOutcome(current, false);
+        if (isAnalyzing) {
+            host.onAnalysisSlow(current);
+        }
+    }
+
+    private void recordOutcome(Request<T> from, boolean success) {
+        if (from.outcomeRecorded) return;
+        from.outcomeRecorded = true;
+
+        long nowMs = host.uptimeMillis();
+        if (success) {
+            circuitBreaker.onSuccess(nowMs - from.startMs, nowMs);
+        } else {
+            circuitBreaker.onFailure(nowMs);
+        }
+    }
+
+    // MARK: - Private Helpers
+    /**
+     * Returns false if the work queue dropped the request before it went out.
+     */
+    private boolean startRequest(String context, String platform, long cacheKey, List<T> shown) {
+        cancelInFlightRequest();
+
+        Request<T> started = new Request<>(generation, context, platform, cacheKey, shown,
+            host.uptimeMillis(), circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN);
+        request = started;
+        isAnalyzing = true;
+        metrics.countRequestIssued();
+        if (!startAttempt(started, 0)) {
+            dropRequest(started);
+            return false;
+        }
+        host.postDelayed(slowCallRunnable, SLOW_CALL_MS);
+        return true;
+    }
+
+    private boolean startAttempt(Request<T> target, int attempt) {
+        target.outstanding++;
+        Call call = host.startAttempt(target, attempt);
+        if (call.isCancelled()) {
+            target.outstanding--;
+            return false;
+        }
+        target.calls[attempt] = call;
+        return true;
+    }
+
+    private void cancelCall(Request<T> target, int attempt) {
+        Call call = target.calls[attempt];
+        target.calls[attempt] = null;
+        if (call != null && call.cancel()) {
+            metrics.countRequestCancelled();
+        }
+    }
+
+    // The request answered; nothing of it is left to time or hedge
+    private void finishRequest() {
+        host.removeCallbacks(hedgeRunnable);
+        host.removeCallbacks(slowCallRunnable);
+        request = null;
+        isAnalyzing = false;
+    }
+
+    /**
+     * Release a request the work queue dropped. It never reached the backend,
+     * so it records no outcome and a probe frees the breaker's slot.
+     */
+    private void dropRequest(Request<T> target) {
+        finishRequest();
+        if (target.isProbe) {
+            circuitBreaker.onCancelled();
+        }
+    }
+
+    /**
+     * Drop the current request, its hedge and timers. A probe that never got
+     * an answer says nothing about the backend, so it frees the breaker's slot.
+     */
+    private void cancelRequest() {
+        host.removeCallbacks(hedgeRunnable);
+        host.removeCallbacks(slowCallRunnable);
+        Request<T> current = request;
+        if (current == null) return;
+
+        request = null;
+        cancelCall(current, 0);
+        cancelCall(current, 1);
+        if (current.isProbe && !current.outcomeRecorded) {
+            circuitBreaker.onCancelled();
+        }
+    }
+
+    /**
+     * One coaching request and, for analyses, its optional hedge. Whichever
+     * attempt delivers first owns the strip; the other is cancelled or its
+     * results dropped.
+     */
+    public static final class Request<T> {
+        private final long generation;
+        private final String context;
+        private final String platform;
+        private final long cacheKey;
+        private final List<T> shown; // Null for analyses
+        private final long startMs;
+        private final boolean isProbe; // Let through by a half-open breaker
+        private final Call[] calls = new Call[2];
+        private int outstanding = 0;
+        private int owner = NO_OWNER;
+        private boolean streaming = false; // The owner's partial results are on screen
+        private boolean outcomeRecorded = false;
+
+        Request(long generation, String context, String platform, long cacheKey, List<T> shown,
+                long startMs, boolean isProbe) {
+            this.generation = generation;
+            this.context = context;
+            this.platform = platform;
+            this.cacheKey = cacheKey;
+            this.shown = shown;
+            this.startMs = startMs;
+            this.isProbe = isProbe;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public String getContext() {
+            return context;
+        }
+
+        public String getPlatform() {
+            return platform;
+        }
+
+        public long getCacheKey() {
+            return cacheKey;
+        }
+
+        /**
+         * Suggestions already on the strip, for a more-suggestions request.
+         */
+        public List<T> getShown() {
+            return shown;
+        }
+
+        public boolean isMoreSuggestions() {
+            return shown != null;
+        }
+
+        /**
+         * Whether results from {@code attempt} may be shown.
+         */
+        private boolean claim(int attempt) {
+            if (owner == NO_OWNER) {
+                owner = attempt;
+            }
+            return owner == attempt;
+        }
+
+        // Every attempt was dropped from the work queue before it ran
+        private boolean isDropped() {
+            for (Call call : calls) {
+                if (call != null && !call.isCancelled()) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * AI Dating Coach - App Profile
+ * Per-app tuning for the analysis pipeline. Each dating app has its own
+ * message length and reply cadence: Tinder chats are short and quick, Hinge
+ * replies answer a prompt and run longer. Apps that aren't dating apps get a
+ * profile with analysis switched off, so they pay nothing for it.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public final class AppProfile {
+
+    private static final long MINUTE_MS = 60 * 1000;
+
+    public static final AppProfile TINDER = new AppProfile("tinder", true, 150, 1500, 160, 2, true, 10 * MINUTE_MS);
+    public static final AppProfile BUMBLE = new AppProfile("bumble", true, 200, 2000, 200, 3, true, 10 * MINUTE_MS);
+    public static final AppProfile HINGE = new AppProfile("hinge", true, 300, 2500, 320, 4, true, 20 * MINUTE_MS);
+    public static final AppProfile DISABLED = new AppProfile("other", false, 0, 0, 1, Integer.MAX_VALUE, false, 0);
+
+    private final String platform;
+    private final boolean analysisEnabled;
+    private final long minDebounceMs;
+    private final long maxDebounceMs;
+    private final int contextWindowChars;
+    private final int minWordsForAnalysis;
+    private final boolean prefetchEnabled;
+    private final long cacheTtlMs;
+
+    private AppProfile(String platform, boolean analysisEnabled, long minDebounceMs, long maxDebounceMs,
+                       int contextWindowChars, int minWordsForAnalysis, boolean prefetchEnabled, long cacheTtlMs) {
+        this.platform = platform;
+        this.analysisEnabled = analysisEnabled;
+        this.minDebounceMs = minDebounceMs;
+        this.maxDebounceMs = maxDebounceMs;
+        this.contextWindowChars = contextWindowChars;
+        this.minWordsForAnalysis = minWordsForAnalysis;
+        this.prefetchEnabled = prefetchEnabled;
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    /**
+     * Profile for the app that owns an editor, by its package name. This is
+     * what EditorInfo reports, so it is right for every input session, even
+     * when the user switches apps without the IME process restarting.
+     */
+    public static AppProfile forPackage(String packageName) {
+        if (packageName == null) return DISABLED;
+
+        switch (packageName) {
+            case "com.tinder":
+                return TINDER;
+            case "com.bumble.app":
+                return BUMBLE;
+            case "co.hinge.app":
+                return HINGE;
+            default:
+                return DISABLED;
+        }
+    }
+
+    /**
+     * Profile for a platform id, as used by the coaching API and the app.
+     */
+    public static AppProfile forPlatform(String platform) {
+        if (platform == null) return DISABLED;
+
+        switch (platform) {
+            case "tinder":
+                return TINDER;
+            case "bumble":
+                return BUMBLE;
+            case "hinge":
+                return HINGE;
+            default:
+                return DISABLED;
+        }
+    }
+
+    // MARK: - Tuning
+    /**
+     * Fit the user's learned pause delay into this app's debounce range.
+     * Sentence-end delays are shorter than any range and pass through.
+     */
+    public long clampDebounceMs(long delayMs, boolean sentenceEnded) {
+        if (sentenceEnded) return Math.min(delayMs, maxDebounceMs);
+        return Math.max(minDebounceMs, Math.min(maxDebounceMs, delayMs));
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public boolean isAnalysisEnabled() {
+        return analysisEnabled;
+    }
+
+    public int getContextWindowChars() {
+        return contextWindowChars;
+    }
+
+    public int getMinWordsForAnalysis() {
+        return minWordsForAnalysis;
+    }
+
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    public long getCacheTtlMs() {
+        return cacheTtlMs;
+    }
+
+    @Override
+    public String toString() {
+        return "AppProfile{" + platform
+            + (analysisEnabled
+                ? ", debounce=" + minDebounceMs + "-" + maxDebounceMs + "ms"
+                    + ", window=" + contextWindowChars
+                    + ", minWords=" + minWordsForAnalysis
+                    + ", prefetch=" + prefetchEnabled
+                    + ", ttl=" + cacheTtlMs / MINUTE_MS + "min"
+                : ", analysis off")
+            + "}";
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * AI Dating Coach - Circuit Breaker
+ * Stops sending coaching requests while the backend is failing or slow, so
+ * the keyboard shows on-device suggestions at once instead of a spinner that
+ * ends in a timeout.
+ *
+ *   CLOSED     requests go out; outcomes of the last WINDOW calls are kept,
+ *              and a call slower than slowCallMs counts as a failure
+ *   OPEN       too many of them failed: requests are refused until openMs
+ *              has passed
+ *   HALF_OPEN  one probe request is let through; success closes the breaker,
+ *              failure opens it again for twice as long, up to maxOpenMs
+ *
+ * Times are monotonic milliseconds supplied by the caller.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] failures; // Ring buffer of recent outcomes
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMs;
+    private final long openMs;
+    private final long maxOpenMs;
+
+    private State state = State.CLOSED;
+    private int recorded = 0;
+    private int next = 0;
+    private int failureCount = 0;
+    private long currentOpenMs;
+    private long openUntilMs = 0;
+    private boolean probeInFlight = false;
+    private long probeStartedMs = 0;
+
+    // Statistics
+    private long openedCount = 0;
+    private long rejectedCount = 0;
+
+    /**
+     * @param window               outcomes considered while closed
+     * @param minCalls             outcomes needed before the breaker may open
+     * @param failureRateThreshold share of failed or slow calls that opens it
+     * @param slowCallMs           latency above which a call counts as failed
+     * @param openMs               first open period
+     * @param maxOpenMs            cap on the doubled open period
+     */
+    public CircuitBreaker(int window, int minCalls, double failureRateThreshold, long slowCallMs,
+                          long openMs, long maxOpenMs) {
+        this.failures = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMs = slowCallMs;
+        this.openMs = openMs;
+        this.maxOpenMs = maxOpenMs;
+        this.currentOpenMs = openMs;
+    }
+
+    // MARK: - Admission
+    /**
+     * Whether a request may go out now. In HALF_OPEN a true return makes the
+     * request the probe; report its outcome, or {@link #onCancelled} if it
+     * never completes.
+     */
+    public synchronized boolean tryAcquire(long nowMs) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowMs < openUntilMs) {
+                    rejectedCount++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return startProbe(nowMs);
+            case HALF_OPEN:
+            default:
+                if (!probeInFlight) {
+                    return startProbe(nowMs);
+                }
+                if (nowMs - probeStartedMs >= slowCallMs) {
+                    // The probe is already too slow to count as a recovery
+                    open(nowMs, true);
+                }
+                rejectedCount++;
+                return false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getSlowCallMs() {
+        return slowCallMs;
+    }
+
+    // MARK: - Outcomes
+    public synchronized void onSuccess(long latencyMs, long nowMs) {
+        if (latencyMs > slowCallMs) {
+            onFailure(nowMs);
+            return;
+        }
+
+        switch (state) {
+            case CLOSED:
+                record(false);
+                break;
+            case HALF_OPEN:
+                close();
+                break;
+            case OPEN:
+                // A call from before the breaker opened; no news about now
+                break;
+        }
+    }
+
+    public synchronized void onFailure(long nowMs) {
+        switch (state) {
+            case CLOSED:
+                record(true);
+                if (recorded >= minCalls && failureCount >= failureRateThreshold * recorded) {
+                    open(nowMs, false);
+                }
+                break;
+            case HALF_OPEN:
+                open(nowMs, true);
+                break;
+            case OPEN:
+                break;
+        }
+    }
+
+    /**
+     * A request let through by tryAcquire was dropped before it completed, so
+     * it tells nothing about the backend. Frees the probe slot.
+     */
+    public synchronized void onCancelled() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{state=" + state
+            + ", failures=" + failureCount + "/" + recorded
+            + ", opened=" + openedCount
+            + ", rejected=" + rejectedCount
+            + ", open_ms=" + currentOpenMs + "}";
+    }
+
+    // MARK: - Private Helpers
+    private boolean startProbe(long nowMs) {
+        probeInFlight = true;
+        probeStartedMs = nowMs;
+        return true;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == failures.length) {
+            if (failures[next]) failureCount--;
+        } else {
+            recorded++;
+        }
+        failures[next] = failed;
+        if (failed) failureCount++;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open(long nowMs, boolean probeFailed) {
+        // Back off harder each time a probe finds the backend still down
+        currentOpenMs = probeFailed ? Math.min(maxOpenMs, currentOpenMs * 2) : openMs;
+        openUntilMs = nowMs + currentOpenMs;
+        state = State.OPEN;
+        probeInFlight = false;
+        openedCount++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        currentOpenMs = openMs;
+        recorded = 0;
+        next = 0;
+        failureCount = 0;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * AI Dating Coach - Context Delta
+ * One request's worth of conversation context in the session protocol: either
+ * the full text, or a single replaced span relative to a context the server
+ * already holds, identified by its hash
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public final class ContextDelta {
+
+    private static final long HASH_SEED = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    private final String sessionId;
+    private final boolean full;
+    private final long baseHash;
+    private final int start;
+    private final int deleteCount;
+    private final String insert;
+    private final long resultHash;
+    private final int resultLength;
+
+    private ContextDelta(String sessionId, boolean full, long baseHash, int start, int deleteCount,
+                         String insert, long resultHash, int resultLength) {
+        this.sessionId = sessionId;
+        this.full = full;
+        this.baseHash = baseHash;
+        this.start = start;
+        this.deleteCount = deleteCount;
+        this.insert = insert;
+        this.resultHash = resultHash;
+        this.resultLength = resultLength;
+    }
+
+    /**
+     * Full resync: the server replaces whatever it holds for the session.
+     */
+    public static ContextDelta full(String sessionId, String context) {
+        return new ContextDelta(sessionId, true, 0, 0, 0, context, hashOf(context), context.length());
+    }
+
+    /**
+     * Replace {@code deleteCount} characters at {@code start} of the base context
+     * with {@code insert}. Appends are edits at the end with nothing deleted.
+     */
+    public static ContextDelta edit(String sessionId, long baseHash, int start, int deleteCount, String insert,
+                                    long resultHash, int resultLength) {
+        return new ContextDelta(sessionId, false, baseHash, start, deleteCount, insert, resultHash, resultLength);
+    }
+
+    // MARK: - Hashing
+    /**
+     * 64-bit FNV-1a over UTF-16 code units. Appended text can be folded into an
+     * existing hash with {@link #extendHash} without rereading the prefix.
+     */
+    public static long hashOf(CharSequence text) {
+        return extendHash(HASH_SEED, text, 0, text.length());
+    }
+
+    public static long extendHash(long hash, CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * HASH_PRIME;
+            hash = (hash ^ (c >>> 8)) * HASH_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Apply this delta to the base context. Returns null if the span doesn't fit
+     * or the result doesn't hash to {@link #getResultHash()}.
+     */
+    public String applyTo(String base) {
+        String result;
+        if (full) {
+            result = insert;
+        } else {
+            if (start < 0 || deleteCount < 0 || start + deleteCount > base.length()) return null;
+            result = base.substring(0, start) + insert + base.substring(start + deleteCount);
+        }
+
+        if (result.length() != resultLength || hashOf(result) != resultHash) return null;
+        return result;
+    }
+
+    // MARK: - Accessors
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public long getBaseHash() {
+        return baseHash;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getDeleteCount() {
+        return deleteCount;
+    }
+
+    public String getInsert() {
+        return insert;
+    }
+
+    public long getResultHash() {
+        return resultHash;
+    }
+
+    public int getResultLength() {
+        return resultLength;
+    }
+
+    @Override
+    public String toString() {
+        if (full) {
+            return "ContextDelta{session=" + sessionId + ", full, length=" + resultLength + "}";
+        }
+        return "ContextDelta{session=" + sessionId
+            + ", base=" + Long.toHexString(baseHash)
+            + ", start=" + start
+            + ", delete=" + deleteCount
+            + ", insert=" + insert.length()
+            + ", length=" + resultLength + "}";
+    }
+}
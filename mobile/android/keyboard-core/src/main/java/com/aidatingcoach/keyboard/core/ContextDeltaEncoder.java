@@ -0,0 +1,146 @@
+/**
+ * AI Dating Coach - Context Delta Encoder
+ * Client half of the context session protocol. Tracks the last context the
+ * server acknowledged and encodes each new context as the single span that
+ * changed since then, falling back to the full text when there is no shared
+ * base or the span wouldn't be smaller.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class ContextDeltaEncoder {
+
+    // Contexts sent but not yet acknowledged; cancelled requests never are
+    private static final int MAX_PENDING = 4;
+
+    // A delta costs a base hash and span offsets on top of the inserted text
+    private static final int DELTA_OVERHEAD_CHARS = 32;
+
+    private final String sessionId;
+    private final LinkedHashMap<Long, String> pending = new LinkedHashMap<Long, String>(8, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_PENDING;
+        }
+    };
+
+    private String acknowledgedContext;
+    private long acknowledgedHash;
+
+    // Statistics
+    private long fullCount = 0;
+    private long deltaCount = 0;
+    private long resyncCount = 0;
+    private long charsSent = 0;
+    private long charsTotal = 0;
+
+    public ContextDeltaEncoder() {
+        this(UUID.randomUUID().toString());
+    }
+
+    public ContextDeltaEncoder(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    // MARK: - Encoding
+    public ContextDelta encode(String context) {
+        ContextDelta delta = acknowledgedContext != null ? diff(acknowledgedContext, context) : null;
+        if (delta == null) {
+            delta = ContextDelta.full(sessionId, context);
+            fullCount++;
+        } else {
+            deltaCount++;
+        }
+
+        pending.put(delta.getResultHash(), context);
+        charsSent += delta.getInsert().length();
+        charsTotal += context.length();
+        return delta;
+    }
+
+    /**
+     * Smallest single-span edit turning {@code base} into {@code context}, or
+     * null when sending the full text is as cheap.
+     */
+    private ContextDelta diff(String base, String context) {
+        int baseLength = base.length();
+        int length = context.length();
+        int limit = Math.min(baseLength, length);
+
+        int prefix = 0;
+        while (prefix < limit && base.charAt(prefix) == context.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && base.charAt(baseLength - 1 - suffix) == context.charAt(length - 1 - suffix)) {
+            suffix++;
+        }
+
+        String insert = context.substring(prefix, length - suffix);
+        if (insert.length() + DELTA_OVERHEAD_CHARS >= length) return null;
+
+        return ContextDelta.edit(sessionId, acknowledgedHash, prefix, baseLength - prefix - suffix, insert,
+            ContextDelta.hashOf(context), length);
+    }
+
+    // MARK: - Server Responses
+    /**
+     * The server now holds the context with this hash. Later deltas are based
+     * on it. Acks for contexts this encoder no longer remembers are ignored.
+     */
+    public void acknowledge(long resultHash) {
+        String context = pending.remove(resultHash);
+        if (context != null) {
+            acknowledgedContext = context;
+            acknowledgedHash = resultHash;
+        }
+    }
+
+    /**
+     * The server couldn't find the base: the next request carries the full text.
+     */
+    public void resync() {
+        acknowledgedContext = null;
+        acknowledgedHash = 0;
+        pending.clear();
+        resyncCount++;
+    }
+
+    // MARK: - Statistics
+    public long getFullCount() {
+        return fullCount;
+    }
+
+    public long getDeltaCount() {
+        return deltaCount;
+    }
+
+    public long getResyncCount() {
+        return resyncCount;
+    }
+
+    /**
+     * Context characters actually sent versus what full requests would have sent.
+     */
+    public double getCompressionRatio() {
+        return charsTotal == 0 ? 1.0 : (double) charsSent / charsTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "ContextDeltaEncoder{session=" + sessionId
+            + ", full=" + fullCount
+            + ", deltas=" + deltaCount
+            + ", resyncs=" + resyncCount
+            + ", sent=" + charsSent + "/" + charsTotal + " chars}";
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * AI Dating Coach - Context Session Server
+ * In-process stand-in for the server half of the context session protocol,
+ * used by local harnesses and as the reference for the backend. Each session
+ * keeps its last few contexts by hash, so a delta still applies when an
+ * earlier request was cancelled or arrived out of order.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ContextSessionServer {
+
+    private static final int RECENT_CONTEXTS_PER_SESSION = 4;
+
+    /**
+     * Outcome of applying one delta. On resync the client must send the full text.
+     */
+    public static final class Result {
+        private final boolean acknowledged;
+        private final String context;
+        private final long hash;
+
+        private Result(boolean acknowledged, String context, long hash) {
+            this.acknowledged = acknowledged;
+            this.context = context;
+            this.hash = hash;
+        }
+
+        public boolean isAcknowledged() {
+            return acknowledged;
+        }
+
+        public boolean isResyncRequired() {
+            return !acknowledged;
+        }
+
+        /**
+         * The reconstructed context, or null on resync.
+         */
+        public String getContext() {
+            return context;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+    }
+
+    private static final Result RESYNC_REQUIRED = new Result(false, null, 0);
+
+    private final int maxSessions;
+    private final LinkedHashMap<String, LinkedHashMap<Long, String>> sessions;
+
+    // Statistics
+    private long fullCount = 0;
+    private long deltaCount = 0;
+    private long resyncCount = 0;
+
+    public ContextSessionServer(final int maxSessions) {
+        this.maxSessions = maxSessions;
+        this.sessions = new LinkedHashMap<String, LinkedHashMap<Long, String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkedHashMap<Long, String>> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    // MARK: - Protocol
+    public synchronized Result apply(ContextDelta delta) {
+        LinkedHashMap<Long, String> recent = sessions.get(delta.getSessionId());
+
+        String base = "";
+        if (!delta.isFull()) {
+            base = recent != null ? recent.get(delta.getBaseHash()) : null;
+            if (base == null) {
+                resyncCount++;
+                return RESYNC_REQUIRED;
+            }
+        }
+
+        String context = delta.applyTo(base);
+        if (context == null) {
+            // Span out of range or hash mismatch: our copies have diverged
+            resyncCount++;
+            return RESYNC_REQUIRED;
+        }
+
+        if (recent == null) {
+            recent = new LinkedHashMap<Long, String>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                    return size() > RECENT_CONTEXTS_PER_SESSION;
+                }
+            };
+            sessions.put(delta.getSessionId(), recent);
+        }
+        recent.put(delta.getResultHash(), context);
+
+        if (delta.isFull()) {
+            fullCount++;
+        } else {
+            deltaCount++;
+        }
+        return new Result(true, context, delta.getResultHash());
+    }
+
+    /**
+     * Forget a session, e.g. when the chat it belonged to is closed.
+     */
+    public synchronized void endSession(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    // MARK: - Statistics
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ContextSessionServer{sessions=" + sessions.size() + "/" + maxSessions
+            + ", full=" + fullCount
+            + ", deltas=" + deltaCount
+            + ", resyncs=" + resyncCount + "}";
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * AI Dating Coach - Keyboard Metrics
+ * Latency histograms and counters for the keystroke and analysis pipeline
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class KeyboardMetrics {
+
+    // Time from the keyboard being asked to show until its first frame is drawn
+    public final LatencyHistogram firstFrame = new LatencyHistogram("first_frame");
+
+    // Latency stages, in pipeline order
+    public final LatencyHistogram keyHandling = new LatencyHistogram("key");
+    public final LatencyHistogram contextRead = new LatencyHistogram("ipc_read");
+    public final LatencyHistogram queueWait = new LatencyHistogram("queue_wait");
+    public final LatencyHistogram network = new LatencyHistogram("network");
+    public final LatencyHistogram render = new LatencyHistogram("render");
+    public final LatencyHistogram timeToSuggestion = new LatencyHistogram("time_to_suggestion");
+
+    private final LatencyHistogram[] histograms = {
+        firstFrame, keyHandling, contextRead, queueWait, network, render, timeToSuggestion
+    };
+
+    // Request outcomes
+    private final AtomicLong requestsIssued = new AtomicLong();
+    private final AtomicLong requestsCancelled = new AtomicLong();
+    private final AtomicLong requestsThrottled = new AtomicLong();
+    private final AtomicLong requestsShortCircuited = new AtomicLong();
+    private final AtomicLong requestsHedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong staleResults = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    // Suggestion strip frames
+    private final AtomicLong stripFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+
+    private volatile long windowStartNanos = System.nanoTime();
+
+    // MARK: - Counters
+    public void countRequestIssued() {
+        requestsIssued.incrementAndGet();
+    }
+
+    public void countRequestCancelled() {
+        requestsCancelled.incrementAndGet();
+    }
+
+    /**
+     * A request the client-side quota kept from going out.
+     */
+    public void countRequestThrottled() {
+        requestsThrottled.incrementAndGet();
+    }
+
+    /**
+     * A request the circuit breaker refused while the backend was failing.
+     */
+    public void countRequestShortCircuited() {
+        requestsShortCircuited.incrementAndGet();
+    }
+
+    public void countRequestHedged() {
+        requestsHedged.incrementAndGet();
+    }
+
+    /**
+     * A hedged request answered before the attempt it backed up.
+     */
+    public void countHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    public void countStaleResult() {
+        staleResults.incrementAndGet();
+    }
+
+    public void countCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public void countCacheMiss() {
+        cacheMisses.incrementAndGet();
+    }
+
+    public void countStripFrame(int skipped) {
+        stripFrames.incrementAndGet();
+        if (skipped > 0) {
+            skippedFrames.addAndGet(skipped);
+        }
+    }
+
+    // MARK: - Reporting
+    public long getWindowMillis() {
+        return (System.nanoTime() - windowStartNanos) / 1000000L;
+    }
+
+    public long getRequestsIssued() {
+        return requestsIssued.get();
+    }
+
+    public long getRequestsCancelled() {
+        return requestsCancelled.get();
+    }
+
+    public long getRequestsThrottled() {
+        return requestsThrottled.get();
+    }
+
+    public long getRequestsShortCircuited() {
+        return requestsShortCircuited.get();
+    }
+
+    public long getRequestsHedged() {
+        return requestsHedged.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public long getStaleResults() {
+        return staleResults.get();
+    }
+
+    /**
+     * Compact single-line summary suitable for logging or uploading.
+     */
+    public String getSummary() {
+        StringBuilder out = new StringBuilder(512);
+        out.append("window=").append(getWindowMillis() / 1000).append('s');
+        out.append(" requests=").append(requestsIssued.get());
+        out.append(" cancelled=").append(requestsCancelled.get());
+        out.append(" throttled=").append(requestsThrottled.get());
+        out.append(" short_circuited=").append(requestsShortCircuited.get());
+        out.append(" hedged=").append(requestsHedged.get());
+        out.append(" hedge_wins=").append(hedgeWins.get());
+        out.append(" stale=").append(staleResults.get());
+        out.append(" cache_hits=").append(cacheHits.get());
+        out.append(" cache_misses=").append(cacheMisses.get());
+        out.append(" strip_frames=").append(stripFrames.get());
+        out.append(" skipped_frames=").append(skippedFrames.get());
+        for (LatencyHistogram histogram : histograms) {
+            out.append(" | ");
+            histogram.appendSummary(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Human-readable dump in the style of {@code dumpsys}.
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println("Keyboard metrics (last " + (getWindowMillis() / 1000) + "s):");
+        writer.print(prefix);
+        writer.println("  requests issued=" + requestsIssued.get()
+            + " cancelled=" + requestsCancelled.get()
+            + " throttled=" + requestsThrottled.get()
+            + " short_circuited=" + requestsShortCircuited.get()
+            + " stale=" + staleResults.get());
+        writer.print(prefix);
+        writer.println("  hedged=" + requestsHedged.get() + " hedge_wins=" + hedgeWins.get());
+        writer.print(prefix);
+        writer.println("  cache hits=" + cacheHits.get() + " misses=" + cacheMisses.get());
+        writer.print(prefix);
+        writer.println("  strip frames=" + stripFrames.get() + " skipped=" + skippedFrames.get());
+
+        StringBuilder line = new StringBuilder(128);
+        for (LatencyHistogram histogram : histograms) {
+            line.setLength(0);
+            histogram.appendSummary(line);
+            writer.print(prefix);
+            writer.print("  ");
+            writer.println(line);
+        }
+    }
+
+    /**
+     * Start a new reporting window.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        requestsIssued.set(0);
+        requestsCancelled.set(0);
+        requestsThrottled.set(0);
+        requestsShortCircuited.set(0);
+        requestsHedged.set(0);
+        hedgeWins.set(0);
+        staleResults.set(0);
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        stripFrames.set(0);
+        skippedFrames.set(0);
+        windowStartNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * AI Dating Coach - Latency Histogram
+ * Lock-free, preallocated log-linear histogram of microsecond latencies.
+ * Each power of two is split into 8 buckets, so percentiles are accurate to
+ * about 12%.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26; // 2^27 us is a little over two minutes
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    public static final long MAX_TRACKABLE_US = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // MARK: - Recording
+    public void recordMicros(long micros) {
+        if (micros < 0) micros = 0;
+        if (micros > MAX_TRACKABLE_US) micros = MAX_TRACKABLE_US;
+
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}, taken from System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        recordMicros((System.nanoTime() - startNanos) / 1000L);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    // MARK: - Queries
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public long getMeanMicros() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalMicros.get() / count;
+    }
+
+    /**
+     * Upper bound of the bucket containing the given percentile (0-100).
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * One-line summary, e.g. {@code network n=12 p50=180ms p95=640ms p99=1.2s max=1.3s}.
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append(name)
+            .append(" n=").append(getCount())
+            .append(" p50=");
+        appendDuration(out, getPercentileMicros(50));
+        out.append(" p95=");
+        appendDuration(out, getPercentileMicros(95));
+        out.append(" p99=");
+        appendDuration(out, getPercentileMicros(99));
+        out.append(" max=");
+        appendDuration(out, getMaxMicros());
+    }
+
+    // MARK: - Bucket Math
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static void appendDuration(StringBuilder out, long micros) {
+        if (micros < 1000) {
+            out.append(micros).append("us");
+        } else if (micros < 1000000) {
+            out.append(micros / 1000).append("ms");
+        } else {
+            out.append(micros / 1000000).append('.').append((micros / 100000) % 10).append('s');
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * AI Dating Coach - Mapped Suggestion Store
+ * Fixed-size, memory-mapped, open-addressed hash table of encoded suggestion
+ * payloads keyed by context hash, so cached suggestions survive the IME
+ * process being killed. Opening maps the file and checks a header; records
+ * are only read when looked up.
+ *
+ * Each slot is a fixed-size record:
+ *
+ *   0   int   state       SLOT_VALID, anything else is empty
+ *   4   long  key
+ *   12  long  writtenAtMs wall clock, for TTL across processes
+ *   20  int   length      payload bytes
+ *   24  ...   payload
+ *   -4  int   CRC32 of key through payload
+ *
+ * A write clears the state word first and sets it last, and readers check the
+ * CRC, so a record torn by a kill mid-write reads as empty. Keys probe a
+ * short window of slots; when the window is full a clock hand gives recently
+ * read records a second chance before evicting.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+public class MappedSuggestionStore {
+
+    private static final int FILE_MAGIC = 0x53554753; // "SUGS"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int SLOT_VALID = 0x56414c31; // "VAL1"
+    private static final int KEY_OFFSET = 4;
+    private static final int TIME_OFFSET = 12;
+    private static final int LENGTH_OFFSET = 20;
+    private static final int PAYLOAD_OFFSET = 24;
+    private static final int SLOT_OVERHEAD = PAYLOAD_OFFSET + 4;
+
+    private static final int PROBE_WINDOW = 8;
+
+    private final File file;
+    private final int slotCount;
+    private final int slotSize;
+    private final long ttlMs;
+
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer map;
+    private final ByteBuffer view; // For bulk copies without moving the map's position
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch;
+
+    // Clock state; reference bits live in memory only and start cleared
+    private final boolean[] referenced;
+    private int clockHand = 0;
+
+    // Statistics
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long corruptCount = 0;
+    private long evictionCount = 0;
+
+    public MappedSuggestionStore(File file, int slotCount, int slotSize, long ttlMs) throws IOException {
+        if (slotCount < PROBE_WINDOW) throw new IllegalArgumentException("slotCount must be at least " + PROBE_WINDOW);
+        if (slotSize <= SLOT_OVERHEAD) throw new IllegalArgumentException("slotSize too small");
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+
+        this.file = file;
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.ttlMs = ttlMs;
+        this.scratch = new byte[slotSize];
+        this.referenced = new boolean[slotCount];
+
+        long size = HEADER_SIZE + (long) slotCount * slotSize;
+        this.raf = new RandomAccessFile(file, "rw");
+        boolean fresh = raf.length() != size;
+        if (fresh) {
+            // New file or a different geometry: start empty
+            raf.setLength(0);
+            raf.setLength(size);
+        }
+        this.map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.view = map.duplicate();
+
+        if (fresh || !headerMatches()) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                map.putInt(slotOffset(slot), 0);
+            }
+            map.putInt(0, FILE_MAGIC);
+            map.putInt(4, FILE_VERSION);
+            map.putInt(8, slotCount);
+            map.putInt(12, slotSize);
+        }
+    }
+
+    /**
+     * Largest payload a slot can hold.
+     */
+    public int getMaxPayloadBytes() {
+        return slotSize - SLOT_OVERHEAD;
+    }
+
+    // MARK: - Lookup
+    /**
+     * Payload stored for {@code key}, or null if absent, expired or corrupt.
+     */
+    public synchronized byte[] get(long key) {
+        long now = System.currentTimeMillis();
+        int home = homeSlot(key);
+
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (home + i) % slotCount;
+            int offset = slotOffset(slot);
+            if (map.getInt(offset) != SLOT_VALID || map.getLong(offset + KEY_OFFSET) != key) continue;
+
+            int length = readVerified(offset);
+            if (length < 0) {
+                map.putInt(offset, 0);
+                corruptCount++;
+                continue;
+            }
+            if (now - map.getLong(offset + TIME_OFFSET) > ttlMs) {
+                map.putInt(offset, 0);
+                break;
+            }
+
+            referenced[slot] = true;
+            hitCount++;
+            byte[] payload = new byte[length];
+            System.arraycopy(scratch, PAYLOAD_OFFSET, payload, 0, length);
+            return payload;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    // MARK: - Writing
+    /**
+     * Store a payload, replacing any previous value for the key. Returns false
+     * if the payload is larger than a slot.
+     */
+    public synchronized boolean put(long key, byte[] payload) {
+        if (payload.length > getMaxPayloadBytes()) return false;
+
+        int slot = findSlotFor(key);
+        int offset = slotOffset(slot);
+
+        // Invalidate first: a kill before the final state write leaves an empty slot
+        map.putInt(offset, 0);
+        map.putLong(offset + KEY_OFFSET, key);
+        map.putLong(offset + TIME_OFFSET, System.currentTimeMillis());
+        map.putInt(offset + LENGTH_OFFSET, payload.length);
+        view.position(offset + PAYLOAD_OFFSET);
+        view.put(payload);
+
+        crc.reset();
+        crc.update(payloadRegion(offset, payload.length), KEY_OFFSET, PAYLOAD_OFFSET - KEY_OFFSET + payload.length);
+        map.putInt(offset + slotSize - 4, (int) crc.getValue());
+        map.putInt(offset, SLOT_VALID);
+
+        referenced[slot] = false;
+        return true;
+    }
+
+    public synchronized void remove(long key) {
+        int home = homeSlot(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int offset = slotOffset((home + i) % slotCount);
+            if (map.getInt(offset) == SLOT_VALID && map.getLong(offset + KEY_OFFSET) == key) {
+                map.putInt(offset, 0);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            map.putInt(slotOffset(slot), 0);
+            referenced[slot] = false;
+        }
+    }
+
+    /**
+     * Write dirty pages to storage. Not needed to survive a process kill, only
+     * a power loss; the kernel flushes mapped pages on its own schedule.
+     */
+    public synchronized void force() {
+        map.force();
+    }
+
+    public synchronized void close() throws IOException {
+        raf.close();
+    }
+
+    // MARK: - Statistics
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MappedSuggestionStore{file=" + file.getName()
+            + ", slots=" + slotCount + "x" + slotSize
+            + ", hits=" + hitCount
+            + ", misses=" + missCount
+            + ", evictions=" + evictionCount
+            + ", corrupt=" + corruptCount + "}";
+    }
+
+    // MARK: - Private Helpers
+    private boolean headerMatches() {
+        return map.getInt(0) == FILE_MAGIC
+            && map.getInt(4) == FILE_VERSION
+            && map.getInt(8) == slotCount
+            && map.getInt(12) == slotSize;
+    }
+
+    private int homeSlot(long key) {
+        long mixed = key ^ (key >>> 32);
+        return (int) ((mixed & 0x7fffffffL) % slotCount);
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    /**
+     * Existing slot for the key, else an empty one in the probe window, else a
+     * clock victim from the window.
+     */
+    private int findSlotFor(long key) {
+        int home = homeSlot(key);
+        int empty = -1;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (home + i) % slotCount;
+            int offset = slotOffset(slot);
+            if (map.getInt(offset) != SLOT_VALID) {
+                if (empty < 0) empty = slot;
+            } else if (map.getLong(offset + KEY_OFFSET) == key) {
+                return slot;
+            }
+        }
+        if (empty >= 0) return empty;
+
+        // Second chance: sweep the window from the hand, clearing reference bits
+        evictionCount++;
+        for (int sweep = 0; sweep < 2 * PROBE_WINDOW; sweep++) {
+            int slot = (home + (clockHand + sweep) % PROBE_WINDOW) % slotCount;
+            if (!referenced[slot]) {
+                clockHand = (clockHand + sweep + 1) % PROBE_WINDOW;
+                return slot;
+            }
+            referenced[slot] = false;
+        }
+        return home; // Unreachable: the first sweep clears every bit
+    }
+
+    /**
+     * Copy the slot into scratch and check its CRC. Returns the payload length,
+     * or -1 if the record is torn or corrupt.
+     */
+    private int readVerified(int offset) {
+        int length = map.getInt(offset + LENGTH_OFFSET);
+        if (length < 0 || length > getMaxPayloadBytes()) return -1;
+
+        byte[] region = payloadRegion(offset, length);
+        crc.reset();
+        crc.update(region, KEY_OFFSET, PAYLOAD_OFFSET - KEY_OFFSET + length);
+        return (int) crc.getValue() == map.getInt(offset + slotSize - 4) ? length : -1;
+    }
+
+    /**
+     * Slot bytes from the start of the record through the payload, in scratch.
+     */
+    private byte[] payloadRegion(int offset, int length) {
+        view.position(offset);
+        view.get(scratch, 0, PAYLOAD_OFFSET + length);
+        return scratch;
+    }
+}
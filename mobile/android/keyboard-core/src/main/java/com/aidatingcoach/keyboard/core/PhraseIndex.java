@@ -0,0 +1,334 @@
+/**
+ * AI Dating Coach - Phrase Index
+ * Compact n-gram table of reply phrases keyed by the last few words typed,
+ * used for instant on-device suggestions. Lookups run on every keystroke, so
+ * suggest() works in scratch buffers sized at load time and allocates nothing;
+ * that makes it single-threaded.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class PhraseIndex {
+
+    public static final String ANY_CONTEXT = "*";
+    public static final int MAX_NGRAM = 3;
+
+    private static final double ANY_CONTEXT_WEIGHT = 0.5;
+
+    public static final class Phrase {
+        private final String text;
+        private final String tone;
+        private final double score;
+        private final String reasoning;
+
+        public Phrase(String text, String tone, double score, String reasoning) {
+            this.text = text;
+            this.tone = tone;
+            this.score = score;
+            this.reasoning = reasoning;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTone() {
+            return tone;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getReasoning() {
+            return reasoning;
+        }
+    }
+
+    private final Map<String, Phrase[]> phrasesByTrigger;
+    private final int phraseCount;
+
+    // Scratch state for suggest(): candidates and their ranks as parallel arrays
+    private final Phrase[] candidates;
+    private final double[] ranks;
+    private final String[] tonesUsed;
+    private final int[] wordStarts = new int[MAX_NGRAM];
+    private final int[] wordEnds = new int[MAX_NGRAM];
+    private final TriggerKey key = new TriggerKey();
+
+    private PhraseIndex(Map<String, Phrase[]> phrasesByTrigger, int phraseCount, int largestBucket) {
+        this.phrasesByTrigger = phrasesByTrigger;
+        this.phraseCount = phraseCount;
+
+        // One bucket per n-gram length plus the any-context bucket
+        this.candidates = new Phrase[largestBucket * (MAX_NGRAM + 1)];
+        this.ranks = new double[candidates.length];
+        this.tonesUsed = new String[candidates.length];
+    }
+
+    // MARK: - Loading
+    /**
+     * Parse a tab-separated phrase table: trigger, tone, score, text, reasoning.
+     * Triggers are one to three lowercase words, or {@code *} for any context.
+     * Blank lines and lines starting with {@code #} are ignored.
+     */
+    public static PhraseIndex load(Reader source) throws IOException {
+        Map<String, List<Phrase>> phrases = new HashMap<>();
+        int count = 0;
+
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+
+            String[] fields = line.split("\t");
+            if (fields.length < 5) continue;
+
+            double score;
+            try {
+                score = Double.parseDouble(fields[2]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            String trigger = fields[0].trim().toLowerCase(Locale.US);
+            List<Phrase> bucket = phrases.get(trigger);
+            if (bucket == null) {
+                bucket = new ArrayList<>(4);
+                phrases.put(trigger, bucket);
+            }
+            bucket.add(new Phrase(fields[3], fields[1].trim(), score, fields[4]));
+            count++;
+        }
+
+        Map<String, Phrase[]> buckets = new HashMap<>(phrases.size() * 2);
+        int largestBucket = 0;
+        for (Map.Entry<String, List<Phrase>> entry : phrases.entrySet()) {
+            List<Phrase> bucket = entry.getValue();
+            buckets.put(entry.getKey(), bucket.toArray(new Phrase[bucket.size()]));
+            largestBucket = Math.max(largestBucket, bucket.size());
+        }
+        return new PhraseIndex(buckets, count, largestBucket);
+    }
+
+    public int size() {
+        return phraseCount;
+    }
+
+    // MARK: - Lookup
+    /**
+     * Rank phrases for the words at the end of {@code context}. Longer trigger
+     * matches win, and the result spreads across tones before repeating one.
+     *
+     * @param tone only return phrases of this tone, or null for any
+     * @return the number of phrases added to {@code out}
+     */
+    public int suggest(CharSequence context, String tone, int limit, List<Phrase> out) {
+        int count = 0;
+        int words = lastWords(context, MAX_NGRAM, wordStarts, wordEnds);
+        for (int n = words; n >= 1; n--) {
+            key.set(context, wordStarts, wordEnds, words, n);
+            count = collect(phrasesByTrigger.get(key), n, tone, count);
+        }
+        count = collect(phrasesByTrigger.get(ANY_CONTEXT), ANY_CONTEXT_WEIGHT, tone, count);
+        sortByRank(count);
+
+        // First pass takes the best phrase of each tone, second pass fills the rest
+        int added = 0;
+        int toneCount = 0;
+        for (int i = 0; i < count && added < limit; i++) {
+            Phrase phrase = candidates[i];
+            if (!containsTone(toneCount, phrase.tone) && !containsText(out, phrase.text)) {
+                tonesUsed[toneCount++] = phrase.tone;
+                out.add(phrase);
+                added++;
+            }
+        }
+        for (int i = 0; i < count && added < limit; i++) {
+            Phrase phrase = candidates[i];
+            if (!containsText(out, phrase.text)) {
+                out.add(phrase);
+                added++;
+            }
+        }
+
+        // Don't keep phrases reachable from the scratch arrays
+        for (int i = 0; i < count; i++) {
+            candidates[i] = null;
+        }
+        for (int i = 0; i < toneCount; i++) {
+            tonesUsed[i] = null;
+        }
+        return added;
+    }
+
+    // MARK: - Private Helpers
+    private int collect(Phrase[] bucket, double weight, String tone, int count) {
+        if (bucket == null) return count;
+
+        for (Phrase phrase : bucket) {
+            if (tone != null && !tone.equals(phrase.tone)) continue;
+            if (indexOf(phrase, count) >= 0) continue;
+
+            candidates[count] = phrase;
+            ranks[count] = phrase.score * weight;
+            count++;
+        }
+        return count;
+    }
+
+    private int indexOf(Phrase phrase, int count) {
+        for (int i = 0; i < count; i++) {
+            if (candidates[i] == phrase) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Stable insertion sort, best rank first. Candidate lists are a handful
+     * of phrases long.
+     */
+    private void sortByRank(int count) {
+        for (int i = 1; i < count; i++) {
+            Phrase phrase = candidates[i];
+            double rank = ranks[i];
+            int j = i - 1;
+            while (j >= 0 && ranks[j] < rank) {
+                candidates[j + 1] = candidates[j];
+                ranks[j + 1] = ranks[j];
+                j--;
+            }
+            candidates[j + 1] = phrase;
+            ranks[j + 1] = rank;
+        }
+    }
+
+    private boolean containsTone(int toneCount, String tone) {
+        for (int i = 0; i < toneCount; i++) {
+            if (tonesUsed[i].equals(tone)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsText(List<Phrase> phrases, String text) {
+        for (int i = 0; i < phrases.size(); i++) {
+            if (phrases.get(i).text.equalsIgnoreCase(text)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The last {@code max} words of the context, lowercased, with punctuation
+     * other than apostrophes dropped.
+     */
+    static String[] lastTokens(CharSequence context, int max) {
+        int[] starts = new int[max];
+        int[] ends = new int[max];
+        int found = lastWords(context, max, starts, ends);
+
+        String[] tokens = new String[found];
+        for (int i = 0; i < found; i++) {
+            tokens[i] = context.subSequence(starts[i], ends[i]).toString().toLowerCase(Locale.US);
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the last {@code max} words of the context and store their bounds,
+     * oldest first, in {@code starts} and {@code ends}.
+     *
+     * @return the number of words found
+     */
+    private static int lastWords(CharSequence context, int max, int[] starts, int[] ends) {
+        int found = 0;
+        int end = context.length();
+
+        while (found < max && end > 0) {
+            while (end > 0 && !isWordChar(context.charAt(end - 1))) end--;
+            int start = end;
+            while (start > 0 && isWordChar(context.charAt(start - 1))) start--;
+            if (start == end) break;
+
+            starts[found] = start;
+            ends[found] = end;
+            found++;
+            end = start;
+        }
+
+        // Collected newest first
+        for (int i = 0, j = found - 1; i < j; i++, j--) {
+            int swap = starts[i];
+            starts[i] = starts[j];
+            starts[j] = swap;
+            swap = ends[i];
+            ends[i] = ends[j];
+            ends[j] = swap;
+        }
+        return found;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    }
+
+    /**
+     * Reusable lookup key for the trigger map: the lowercased, space-joined
+     * last words of the context. It hashes like the equal String and compares
+     * equal to it, so the map can be queried without building one.
+     */
+    private static final class TriggerKey {
+        private char[] chars = new char[64];
+        private int length;
+        private int hash;
+
+        // The last n of the given words
+        void set(CharSequence context, int[] starts, int[] ends, int words, int n) {
+            length = 0;
+            for (int w = words - n; w < words; w++) {
+                if (length > 0) append(' ');
+                for (int i = starts[w]; i < ends[w]; i++) {
+                    append(Character.toLowerCase(context.charAt(i)));
+                }
+            }
+
+            int h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + chars[i];
+            }
+            hash = h;
+        }
+
+        private void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof String)) return false;
+            String trigger = (String) other;
+            if (trigger.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (trigger.charAt(i) != chars[i]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * AI Dating Coach - Priority Task Scheduler
+ * Small fixed pool for coaching work with explicit priority classes, a bounded
+ * queue and per-class concurrency limits. Queued tasks with the same merge key
+ * supersede each other, so a stalled network can't build up a backlog of work
+ * nobody is waiting for.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PriorityTaskScheduler {
+
+    /**
+     * Priority classes, highest first. The limit is how many tasks of the class
+     * may run at once.
+     */
+    public enum Priority {
+        INTERACTIVE(2),      // Analysis of what the user is typing right now
+        MORE_SUGGESTIONS(1), // Explicit "more" taps
+        PREFETCH(1),         // Speculative work and local warm-up
+        TELEMETRY(1);        // Usage uploads
+
+        final int concurrencyLimit;
+
+        Priority(int concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final int threadCount;
+    private final int queueCapacity;
+    private final Thread[] workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+
+    // Guarded by lock
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Task<?>>[] queues = new ArrayDeque[PRIORITIES.length];
+    private final int[] running = new int[PRIORITIES.length];
+    private int queuedCount = 0;
+    private boolean shutdown = false;
+
+    // Statistics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public PriorityTaskScheduler(int threadCount, int queueCapacity, ThreadFactory threadFactory) {
+        if (threadCount < 2) throw new IllegalArgumentException("threadCount must be at least 2");
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be positive");
+
+        this.threadCount = threadCount;
+        this.queueCapacity = queueCapacity;
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+
+        ThreadFactory factory = threadFactory != null ? threadFactory : Executors.defaultThreadFactory();
+        Runnable workerLoop = new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        };
+        workers = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = factory.newThread(workerLoop);
+            workers[i].start();
+        }
+    }
+
+    // MARK: - Submission
+    public Future<?> submit(Priority priority, Object mergeKey, Runnable runnable) {
+        return submit(priority, mergeKey, Executors.callable(runnable));
+    }
+
+    /**
+     * Queue a task. A queued (not yet running) task of the same class with an
+     * equal merge key is cancelled and replaced. When the queue is full the
+     * newest task of the lowest class below {@code priority} is dropped to make
+     * room; if there is none, the new task is dropped instead. Dropped tasks
+     * come back as cancelled futures.
+     */
+    public <T> Future<T> submit(Priority priority, Object mergeKey, Callable<T> callable) {
+        Task<T> task = new Task<>(priority, mergeKey, callable);
+        submitted.incrementAndGet();
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                dropped.incrementAndGet();
+                task.cancel(false);
+                return task;
+            }
+
+            if (mergeKey != null) {
+                Iterator<Task<?>> queued = queues[priority.ordinal()].iterator();
+                while (queued.hasNext()) {
+                    Task<?> old = queued.next();
+                    if (mergeKey.equals(old.mergeKey)) {
+                        queued.remove();
+                        queuedCount--;
+                        old.cancel(false);
+                        merged.incrementAndGet();
+                    }
+                }
+            }
+
+            if (queuedCount >= queueCapacity) {
+                purgeCancelled();
+            }
+            if (queuedCount >= queueCapacity && !evictBelow(priority)) {
+                dropped.incrementAndGet();
+                task.cancel(false);
+                return task;
+            }
+
+            queues[priority.ordinal()].addLast(task);
+            queuedCount++;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task;
+    }
+
+    /**
+     * Stop accepting work, discard queued tasks and interrupt running ones.
+     */
+    public void shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            for (ArrayDeque<Task<?>> queue : queues) {
+                for (Task<?> task : queue) {
+                    task.cancel(false);
+                }
+                queue.clear();
+            }
+            queuedCount = 0;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // MARK: - Statistics
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getMergedCount() {
+        return merged.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityTaskScheduler{threads=" + threadCount
+            + ", queued=" + getQueuedCount() + "/" + queueCapacity
+            + ", submitted=" + submitted.get()
+            + ", merged=" + merged.get()
+            + ", dropped=" + dropped.get() + "}";
+    }
+
+    // MARK: - Workers
+    private void runWorker() {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                while ((task = nextRunnable()) == null) {
+                    if (shutdown) return;
+                    workAvailable.awaitUninterruptibly();
+                }
+                running[task.priority.ordinal()]++;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } finally {
+                // Don't let a cancel(true) aimed at this task leak into the next one
+                Thread.interrupted();
+
+                lock.lock();
+                try {
+                    running[task.priority.ordinal()]--;
+                    workAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Highest-priority queued task whose class is under its limit. One thread
+     * is always held back for interactive work.
+     */
+    private Task<?> nextRunnable() {
+        int backgroundRunning = 0;
+        for (int i = 1; i < PRIORITIES.length; i++) {
+            backgroundRunning += running[i];
+        }
+
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            ArrayDeque<Task<?>> queue = queues[i];
+            if (queue.isEmpty() || running[i] >= PRIORITIES[i].concurrencyLimit) continue;
+            if (i > 0 && backgroundRunning >= threadCount - 1) continue;
+
+            while (!queue.isEmpty()) {
+                Task<?> task = queue.pollFirst();
+                queuedCount--;
+                if (!task.isCancelled()) return task;
+            }
+        }
+        return null;
+    }
+
+    private void purgeCancelled() {
+        for (ArrayDeque<Task<?>> queue : queues) {
+            Iterator<Task<?>> queued = queue.iterator();
+            while (queued.hasNext()) {
+                if (queued.next().isCancelled()) {
+                    queued.remove();
+                    queuedCount--;
+                }
+            }
+        }
+    }
+
+    private boolean evictBelow(Priority priority) {
+        for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+            Task<?> victim = queues[i].pollLast();
+            if (victim != null) {
+                queuedCount--;
+                victim.cancel(false);
+                dropped.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Task<T> extends FutureTask<T> {
+        final Priority priority;
+        final Object mergeKey;
+
+        Task(Priority priority, Object mergeKey, Callable<T> callable) {
+            super(callable);
+            this.priority = priority;
+            this.mergeKey = mergeKey;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * AI Dating Coach - Request Quota
+ * Client-side mirror of the server's usage limits, checked before any coaching
+ * request leaves the device. Two limits apply:
+ *
+ *   burst   a token bucket sized by tier, so fast typing can't fire a request
+ *           per pause
+ *   period  the allowance left until the server's reset time, learned from
+ *           rate-limit response headers; unknown until the first response
+ *
+ * A 429 blocks all requests until its Retry-After. Times are wall-clock
+ * milliseconds so the state can be persisted and restored across restarts.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public class RequestQuota {
+
+    /**
+     * Subscription tiers, by the backend's ids. The app's tier table still
+     * uses older names, accepted as aliases.
+     */
+    public enum Tier {
+        SPARK("spark", 0, 0, "free"),       // Free: no keyboard coaching, local suggestions only
+        FLAME("flame", 4, 12, "premium"),
+        BLAZE("blaze", 8, 30, "pro", "elite");
+
+        private final String id;
+        private final int burst;
+        private final double refillPerMinute;
+        private final String[] aliases;
+
+        Tier(String id, int burst, double refillPerMinute, String... aliases) {
+            this.id = id;
+            this.burst = burst;
+            this.refillPerMinute = refillPerMinute;
+            this.aliases = aliases;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Tier for an id, or {@code fallback} if the id is unknown.
+         */
+        public static Tier fromId(String id, Tier fallback) {
+            if (id == null) return fallback;
+
+            String normalized = id.trim().toLowerCase(java.util.Locale.US);
+            for (Tier tier : values()) {
+                if (tier.id.equals(normalized)) return tier;
+                for (String alias : tier.aliases) {
+                    if (alias.equals(normalized)) return tier;
+                }
+            }
+            return fallback;
+        }
+    }
+
+    public enum Denial {
+        NONE,
+        BURST,
+        PERIOD,
+        RATE_LIMITED
+    }
+
+    public static final long UNKNOWN = -1;
+
+    private static final long MAX_RETRY_AFTER_MS = 60 * 60 * 1000;
+    private static final long UNKNOWN_RESET_WINDOW_MS = 60 * 60 * 1000;
+
+    private Tier tier;
+    private double tokens;
+    private long lastRefillMs;
+    private long periodRemaining = UNKNOWN;
+    private long periodResetAtMs = 0;
+    private long blockedUntilMs = 0;
+
+    // Statistics
+    private long grantedCount = 0;
+    private long deniedBurstCount = 0;
+    private long deniedPeriodCount = 0;
+    private long deniedRateLimitedCount = 0;
+
+    public RequestQuota(Tier tier, long nowMs) {
+        this.tier = tier;
+        this.tokens = tier.burst;
+        this.lastRefillMs = nowMs;
+    }
+
+    // MARK: - Admission
+    /**
+     * Take one request's worth of quota. Returns NONE if the request may go
+     * out, otherwise why it may not; nothing is taken on a denial.
+     */
+    public synchronized Denial tryAcquire(long nowMs) {
+        refill(nowMs);
+
+        Denial denial = Denial.NONE;
+        if (nowMs < blockedUntilMs) {
+            denial = Denial.RATE_LIMITED;
+        } else if (periodRemaining == 0) {
+            denial = Denial.PERIOD;
+        } else if (tokens < 1) {
+            denial = Denial.BURST;
+        }
+
+        switch (denial) {
+            case NONE:
+                tokens -= 1;
+                if (periodRemaining > 0) {
+                    periodRemaining--;
+                }
+                grantedCount++;
+                break;
+            case BURST:
+                deniedBurstCount++;
+                break;
+            case PERIOD:
+                deniedPeriodCount++;
+                break;
+            case RATE_LIMITED:
+                deniedRateLimitedCount++;
+                break;
+        }
+        return denial;
+    }
+
+    // MARK: - Server Feedback
+    /**
+     * Limits reported with a response. The server's count wins over ours; it
+     * also sees requests from the app. An exhausted allowance without a usable
+     * reset time is retried after a fixed window; with no request going out,
+     * nothing else would ever lift it.
+     */
+    public synchronized void onServerLimits(long remaining, long resetAtMs, long nowMs) {
+        if (remaining >= 0) {
+            periodRemaining = remaining;
+        }
+        if (resetAtMs > nowMs) {
+            periodResetAtMs = resetAtMs;
+        } else if (periodRemaining == 0 && periodResetAtMs <= nowMs) {
+            periodResetAtMs = nowMs + UNKNOWN_RESET_WINDOW_MS;
+        }
+    }
+
+    /**
+     * The server answered 429. Back off for its Retry-After, capped so a bad
+     * header can't disable coaching for days.
+     */
+    public synchronized void onRateLimited(long retryAfterMs, long nowMs) {
+        long backoffMs = Math.max(0, Math.min(MAX_RETRY_AFTER_MS, retryAfterMs));
+        blockedUntilMs = Math.max(blockedUntilMs, nowMs + backoffMs);
+        tokens = 0;
+    }
+
+    public synchronized void setTier(Tier tier, long nowMs) {
+        if (this.tier == tier) return;
+        refill(nowMs);
+        this.tier = tier;
+        tokens = Math.min(tokens, tier.burst);
+    }
+
+    // MARK: - Persistence
+    public synchronized Tier getTier() {
+        return tier;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+
+    public synchronized long getLastRefillMs() {
+        return lastRefillMs;
+    }
+
+    public synchronized long getPeriodRemaining() {
+        return periodRemaining;
+    }
+
+    public synchronized long getPeriodResetAtMs() {
+        return periodResetAtMs;
+    }
+
+    public synchronized long getBlockedUntilMs() {
+        return blockedUntilMs;
+    }
+
+    public synchronized void restore(double tokens, long lastRefillMs, long periodRemaining,
+                                     long periodResetAtMs, long blockedUntilMs, long nowMs) {
+        this.tokens = Math.max(0, Math.min(tier.burst, tokens));
+        this.lastRefillMs = Math.min(lastRefillMs, nowMs);
+        this.periodRemaining = periodRemaining >= 0 ? periodRemaining : UNKNOWN;
+        this.periodResetAtMs = periodResetAtMs;
+        this.blockedUntilMs = Math.min(blockedUntilMs, nowMs + MAX_RETRY_AFTER_MS);
+        refill(nowMs);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RequestQuota{tier=" + tier.id
+            + ", tokens=" + String.format(java.util.Locale.US, "%.1f", tokens) + "/" + tier.burst
+            + ", period_remaining=" + (periodRemaining == UNKNOWN ? "unknown" : String.valueOf(periodRemaining))
+            + ", granted=" + grantedCount
+            + ", denied_burst=" + deniedBurstCount
+            + ", denied_period=" + deniedPeriodCount
+            + ", denied_429=" + deniedRateLimitedCount + "}";
+    }
+
+    // MARK: - Private Helpers
+    private void refill(long nowMs) {
+        if (nowMs < lastRefillMs) {
+            // Wall clock moved back; restart the refill from here
+            lastRefillMs = nowMs;
+            return;
+        }
+
+        tokens = Math.min(tier.burst, tokens + (nowMs - lastRefillMs) * tier.refillPerMinute / 60000.0);
+        lastRefillMs = nowMs;
+
+        if (periodResetAtMs != 0 && nowMs >= periodResetAtMs) {
+            // A new period; the next response tells us the new allowance
+            periodRemaining = UNKNOWN;
+            periodResetAtMs = 0;
+        }
+    }
+}
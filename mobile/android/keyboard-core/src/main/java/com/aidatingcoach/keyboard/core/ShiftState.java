@@ -0,0 +1,50 @@
+/**
+ * AI Dating Coach - Shift State
+ * One-shot shift and caps lock handling for the letter layout
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public class ShiftState {
+
+    private boolean shiftPressed = false;
+    private boolean capsLockOn = false;
+
+    /**
+     * Shift toggles a one-shot shift; pressing it again while shifted toggles
+     * caps lock.
+     */
+    public void onShiftKey() {
+        if (shiftPressed) {
+            // Double tap for caps lock
+            capsLockOn = !capsLockOn;
+            shiftPressed = false;
+        } else {
+            shiftPressed = true;
+        }
+    }
+
+    /**
+     * Apply the current case to a typed character, releasing a one-shot shift
+     * once a letter has used it.
+     */
+    public char apply(char code) {
+        if (!Character.isLetter(code)) return code;
+
+        char result = (shiftPressed || capsLockOn) ? Character.toUpperCase(code) : Character.toLowerCase(code);
+
+        // Reset shift after use (unless caps lock is on)
+        if (shiftPressed && !capsLockOn) {
+            shiftPressed = false;
+        }
+        return result;
+    }
+
+    public boolean isShifted() {
+        return shiftPressed || capsLockOn;
+    }
+
+    public boolean isCapsLockOn() {
+        return capsLockOn;
+    }
+}
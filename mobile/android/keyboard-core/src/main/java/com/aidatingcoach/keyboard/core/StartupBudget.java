@@ -0,0 +1,138 @@
+/**
+ * AI Dating Coach - Startup Budget
+ * Bookkeeping behind the app's StartupTracer: named phases timed on a
+ * caller-supplied monotonic clock, each checked against an optional budget,
+ * and the one-line summary written per cold start. Not thread-safe; the
+ * tracer serializes access.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StartupBudget {
+
+    public static final long NO_BUDGET = -1;
+
+    private static final long NANOS_PER_MS = 1000000;
+
+    private final Map<String, Long> budgetsMs = new HashMap<>();
+    private final List<Phase> phases = new ArrayList<>();
+
+    public StartupBudget setBudgetMs(String phase, long budgetMs) {
+        budgetsMs.put(phase, budgetMs);
+        return this;
+    }
+
+    /**
+     * Budget for a phase in milliseconds, or NO_BUDGET. Phases without one
+     * are reported but never over budget.
+     */
+    public long getBudgetMs(String phase) {
+        Long budget = budgetsMs.get(phase);
+        return budget != null ? budget : NO_BUDGET;
+    }
+
+    // MARK: - Phases
+    public void begin(String phase, long nowNanos) {
+        phases.add(new Phase(phase, nowNanos));
+    }
+
+    /**
+     * End the innermost open phase with this name. Returns true if it ran
+     * over its budget; ending a phase that isn't open does nothing.
+     */
+    public boolean end(String phase, long nowNanos) {
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            Phase open = phases.get(i);
+            if (open.name.equals(phase) && open.durationNanos < 0) {
+                open.durationNanos = nowNanos - open.startNanos;
+                return isOverBudget(open);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a phase that was measured elsewhere, e.g. from process start.
+     */
+    public void record(String phase, long startNanos, long endNanos) {
+        Phase completed = new Phase(phase, startNanos);
+        completed.durationNanos = endNanos - startNanos;
+        phases.add(completed);
+    }
+
+    /**
+     * Duration of the latest completed phase with this name, or -1.
+     */
+    public long getDurationMs(String phase) {
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            Phase candidate = phases.get(i);
+            if (candidate.name.equals(phase) && candidate.durationNanos >= 0) {
+                return candidate.getDurationMs();
+            }
+        }
+        return -1;
+    }
+
+    public List<String> getOverBudget() {
+        List<String> overBudget = new ArrayList<>();
+        for (Phase phase : phases) {
+            if (isOverBudget(phase)) {
+                overBudget.add(phase.name);
+            }
+        }
+        return overBudget;
+    }
+
+    // MARK: - Reporting
+    /**
+     * {@code startup[label] phase=12ms/50 ... | within budget}, phases in the
+     * order they began.
+     */
+    public String getSummary(String label) {
+        StringBuilder summary = new StringBuilder("startup[").append(label).append("]");
+
+        for (Phase phase : phases) {
+            summary.append(' ').append(phase.name).append('=');
+            if (phase.durationNanos < 0) {
+                summary.append("open");
+                continue;
+            }
+            summary.append(phase.getDurationMs()).append("ms");
+
+            long budget = getBudgetMs(phase.name);
+            if (budget != NO_BUDGET) {
+                summary.append('/').append(budget);
+            }
+        }
+
+        List<String> overBudget = getOverBudget();
+        summary.append(overBudget.isEmpty() ? " | within budget" : " | over budget: " + overBudget);
+        return summary.toString();
+    }
+
+    // MARK: - Private Helpers
+    private boolean isOverBudget(Phase phase) {
+        long budget = getBudgetMs(phase.name);
+        return budget != NO_BUDGET && phase.durationNanos >= 0 && phase.getDurationMs() > budget;
+    }
+
+    private static final class Phase {
+        final String name;
+        final long startNanos;
+        long durationNanos = -1;
+
+        Phase(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        long getDurationMs() {
+            return durationNanos / NANOS_PER_MS;
+        }
+    }
+}
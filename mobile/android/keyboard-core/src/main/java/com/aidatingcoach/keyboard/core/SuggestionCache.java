@@ -0,0 +1,226 @@
+/**
+ * AI Dating Coach - Suggestion Cache
+ * Byte-budgeted LRU cache of analysis results keyed by a normalized context hash
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SuggestionCache<V> {
+
+    /**
+     * Estimates how many bytes of heap a cached value retains.
+     */
+    public interface Weigher<V> {
+        int weigh(V value);
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final LinkedHashMap<Long, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Weigher<V> weigher;
+    private final long ttlMs;
+    private final long maxBytes;
+    private long currentBytes = 0;
+
+    // Statistics
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long expirationCount = 0;
+
+    public SuggestionCache(long maxBytes, long ttlMs, Weigher<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        this.weigher = weigher;
+    }
+
+    // MARK: - Keys
+    /**
+     * Hash the context the way a user would read it: case, leading/trailing
+     * whitespace and runs of whitespace don't change the key.
+     */
+    public static long keyFor(CharSequence context, String platform) {
+        long hash = FNV_OFFSET_BASIS;
+        boolean pendingSpace = false;
+        boolean seenText = false;
+
+        for (int i = 0; i < context.length(); i++) {
+            char c = context.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = seenText;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            seenText = true;
+        }
+
+        // Separate the platform so "ab" + "c" never collides with "a" + "bc"
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        if (platform != null) {
+            for (int i = 0; i < platform.length(); i++) {
+                hash = (hash ^ platform.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Key for a conversation or draft as either surface sees it. The keyboard
+     * only ever holds the last context window of the text before the cursor,
+     * so the app's full conversation text is cut to the same window first.
+     */
+    public static long keyForContext(CharSequence text, String platform) {
+        CharSequence context = text != null ? text : "";
+        if (!isWholeContext(context, platform)) {
+            int window = AppProfile.forPlatform(platform).getContextWindowChars();
+            context = context.subSequence(context.length() - window, context.length());
+        }
+        return keyFor(context, platform);
+    }
+
+    /**
+     * Whether {@link #keyForContext} keys all of {@code text}. Longer text is
+     * cut to its last window, and that entry only answers for the tail.
+     */
+    public static boolean isWholeContext(CharSequence text, String platform) {
+        AppProfile profile = AppProfile.forPlatform(platform);
+        return text == null || !profile.isAnalysisEnabled() || text.length() <= profile.getContextWindowChars();
+    }
+
+    // MARK: - Cache Operations
+    public synchronized V get(long key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        if (entry.expiresAtMs <= now()) {
+            removeEntry(key, entry);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry.value;
+    }
+
+    public synchronized void put(long key, V value) {
+        put(key, value, ttlMs);
+    }
+
+    /**
+     * Store with a TTL other than the cache default, e.g. one tuned per app.
+     */
+    public synchronized void put(long key, V value, long ttlMs) {
+        int weight = weigher.weigh(value) + ENTRY_OVERHEAD_BYTES;
+        if (weight > maxBytes) return;
+
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            currentBytes -= previous.weight;
+        }
+
+        entries.put(key, new Entry<>(value, weight, now() + ttlMs));
+        currentBytes += weight;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized void invalidate(long key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            removeEntry(key, entry);
+        }
+    }
+
+    /**
+     * Evict least recently used entries until at most {@code targetBytes} remain.
+     */
+    public synchronized void trimToSize(long targetBytes) {
+        Iterator<Map.Entry<Long, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (currentBytes > targetBytes && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= eldest.weight;
+            evictionCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        evictionCount += entries.size();
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    // MARK: - Statistics
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        return currentBytes;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SuggestionCache{entries=" + entries.size()
+            + ", bytes=" + currentBytes + "/" + maxBytes
+            + ", hits=" + hitCount
+            + ", misses=" + missCount
+            + ", evictions=" + evictionCount
+            + ", expirations=" + expirationCount + "}";
+    }
+
+    // MARK: - Private Helpers
+    private void removeEntry(long key, Entry<V> entry) {
+        entries.remove(key);
+        currentBytes -= entry.weight;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long expiresAtMs;
+
+        Entry(V value, int weight, long expiresAtMs) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
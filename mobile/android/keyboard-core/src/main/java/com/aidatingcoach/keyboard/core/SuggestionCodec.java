@@ -0,0 +1,124 @@
+/**
+ * AI Dating Coach - Suggestion Codec
+ * Compact binary encoding of a suggestion response, versus the JSON the
+ * coaching API returns by default. Layout, all integers as unsigned LEB128
+ * varints unless noted:
+ *
+ *   'S' 'G' version flags        4 header bytes
+ *   [dictionary]                 if flags & FLAG_DICTIONARY: count, then strings
+ *   count                        number of suggestions
+ *   per suggestion:
+ *     tone                       enum ordinal
+ *     engagement                 zigzag varint, hundredths of a point
+ *     text                       string
+ *     reasoning                  (index << 1) | 1 for a dictionary entry,
+ *                                or (byteLength << 1) followed by UTF-8 bytes
+ *
+ * Strings are a byte length followed by UTF-8. Readers reject versions newer
+ * than they understand; fields are only ever appended within a version.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class SuggestionCodec {
+
+    public static final String CONTENT_TYPE = "application/x-suggestions";
+
+    static final byte MAGIC_0 = 'S';
+    static final byte MAGIC_1 = 'G';
+    static final int VERSION = 1;
+    static final int FLAG_DICTIONARY = 1;
+
+    static final int MAX_STRING_BYTES = 64 * 1024;
+    static final int MAX_COUNT = 1024;
+    static final double ENGAGEMENT_SCALE = 100.0;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private SuggestionCodec() {
+    }
+
+    // MARK: - Encoding
+    public static byte[] encode(List<SuggestionRecord> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 96 * records.size());
+        try {
+            encode(records, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream doesn't throw
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write the records. Reasoning strings that occur more than once go into the
+     * dictionary and are written by index.
+     */
+    public static void encode(List<SuggestionRecord> records, OutputStream out) throws IOException {
+        Map<String, Integer> counts = new HashMap<>();
+        for (SuggestionRecord record : records) {
+            Integer count = counts.get(record.getReasoning());
+            counts.put(record.getReasoning(), count == null ? 1 : count + 1);
+        }
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        for (SuggestionRecord record : records) {
+            String reasoning = record.getReasoning();
+            if (counts.get(reasoning) > 1 && !dictionary.containsKey(reasoning)) {
+                dictionary.put(reasoning, entries.size());
+                entries.add(reasoning);
+            }
+        }
+
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.write(entries.isEmpty() ? 0 : FLAG_DICTIONARY);
+
+        if (!entries.isEmpty()) {
+            writeVarint(out, entries.size());
+            for (String entry : entries) {
+                writeString(out, entry);
+            }
+        }
+
+        writeVarint(out, records.size());
+        for (SuggestionRecord record : records) {
+            writeVarint(out, record.getToneOrdinal());
+            long engagement = Math.round(record.getEngagementPrediction() * ENGAGEMENT_SCALE);
+            writeVarint(out, (engagement << 1) ^ (engagement >> 63));
+            writeString(out, record.getText());
+
+            Integer index = dictionary.get(record.getReasoning());
+            if (index != null) {
+                writeVarint(out, ((long) index << 1) | 1);
+            } else {
+                byte[] bytes = record.getReasoning().getBytes(UTF_8);
+                writeVarint(out, (long) bytes.length << 1);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * AI Dating Coach - Suggestion Decoder
+ * Streaming reader for the SuggestionCodec format. Suggestions are decoded one
+ * at a time into caller-owned records, and the decoder reuses its scratch
+ * buffer and dictionary between responses, so the only per-response garbage
+ * is the strings themselves.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class SuggestionDecoder {
+
+    private InputStream in;
+    private byte[] scratch = new byte[256];
+    private String[] dictionary = new String[8];
+    private int dictionarySize = 0;
+    private int remaining = 0;
+
+    /**
+     * Read the header and dictionary. Returns how many suggestions follow.
+     * Pass a buffered stream; the decoder reads single bytes.
+     */
+    public int begin(InputStream in) throws IOException {
+        this.in = in;
+        this.remaining = 0;
+        Arrays.fill(dictionary, 0, dictionarySize, null);
+        this.dictionarySize = 0;
+
+        if (readByte() != SuggestionCodec.MAGIC_0 || readByte() != SuggestionCodec.MAGIC_1) {
+            throw new IOException("Not a suggestion payload");
+        }
+        int version = readByte();
+        if (version > SuggestionCodec.VERSION) {
+            throw new IOException("Unsupported suggestion payload version " + version);
+        }
+        int flags = readByte();
+
+        if ((flags & SuggestionCodec.FLAG_DICTIONARY) != 0) {
+            int size = readLength(SuggestionCodec.MAX_COUNT);
+            if (dictionary.length < size) {
+                dictionary = new String[size];
+            }
+            for (int i = 0; i < size; i++) {
+                dictionary[i] = readString(readLength(SuggestionCodec.MAX_STRING_BYTES));
+            }
+            dictionarySize = size;
+        }
+
+        remaining = readLength(SuggestionCodec.MAX_COUNT);
+        return remaining;
+    }
+
+    /**
+     * Decode the next suggestion into {@code into}. Returns false once all
+     * suggestions announced by begin() have been read.
+     */
+    public boolean next(SuggestionRecord into) throws IOException {
+        if (remaining == 0) return false;
+        remaining--;
+
+        int toneOrdinal = readLength(Integer.MAX_VALUE);
+        long zigzag = readVarint();
+        double engagement = ((zigzag >>> 1) ^ -(zigzag & 1)) / SuggestionCodec.ENGAGEMENT_SCALE;
+        String text = readString(readLength(SuggestionCodec.MAX_STRING_BYTES));
+
+        String reasoning;
+        long reference = readVarint();
+        if ((reference & 1) != 0) {
+            long index = reference >>> 1;
+            if (index >= dictionarySize) throw new IOException("Bad dictionary index " + index);
+            reasoning = dictionary[(int) index];
+        } else {
+            long length = reference >>> 1;
+            if (length > SuggestionCodec.MAX_STRING_BYTES) throw new IOException("String too long: " + length);
+            reasoning = readString((int) length);
+        }
+
+        into.set(text, toneOrdinal, engagement, reasoning);
+        return true;
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+
+    // MARK: - Primitives
+    private int readByte() throws IOException {
+        int value = in.read();
+        if (value < 0) throw new EOFException("Truncated suggestion payload");
+        return value;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readLength(int max) throws IOException {
+        long value = readVarint();
+        if (value > max) throw new IOException("Length out of range: " + value);
+        return (int) value;
+    }
+
+    private String readString(int length) throws IOException {
+        if (length == 0) return "";
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int read = 0;
+        while (read < length) {
+            int n = in.read(scratch, read, length - read);
+            if (n < 0) throw new EOFException("Truncated suggestion payload");
+            read += n;
+        }
+        return new String(scratch, 0, length, SuggestionCodec.UTF_8);
+    }
+}
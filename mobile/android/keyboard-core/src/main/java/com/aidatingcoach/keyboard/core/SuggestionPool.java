@@ -0,0 +1,147 @@
+/**
+ * AI Dating Coach - Suggestion Pool
+ * Bounded set of the best suggestions seen for the current context. Holds at
+ * most {@code capacity} items ranked by score, at most {@code perToneQuota}
+ * of any one tone, and one item per normalized text, so repeated "more"
+ * requests refine the strip instead of growing it.
+ *
+ * Items are kept in a best-first array rather than a heap: capacity is a
+ * handful, and the strip needs them in display order anyway.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class SuggestionPool<T> {
+
+    /**
+     * How the pool reads an item; keeps this module free of the app's model types.
+     */
+    public interface Attributes<T> {
+        CharSequence getText(T item);
+
+        int getTone(T item);
+
+        double getScore(T item);
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int capacity;
+    private final int perToneQuota;
+    private final Attributes<T> attributes;
+
+    // Parallel arrays, best first
+    private final ArrayList<T> ranked;
+    private final ArrayList<Long> textKeys;
+
+    public SuggestionPool(int capacity, int perToneQuota, Attributes<T> attributes) {
+        if (capacity < 1 || perToneQuota < 1) throw new IllegalArgumentException("capacity and quota must be positive");
+        this.capacity = capacity;
+        this.perToneQuota = perToneQuota;
+        this.attributes = attributes;
+        this.ranked = new ArrayList<>(capacity);
+        this.textKeys = new ArrayList<>(capacity);
+    }
+
+    // MARK: - Updating
+    /**
+     * Add an item if it beats what it would displace: a near-identical text,
+     * the weakest item of its tone once the tone is at quota, or the weakest
+     * item overall once the pool is full. Returns whether the pool changed.
+     */
+    public boolean offer(T item) {
+        long key = textKey(attributes.getText(item));
+        int tone = attributes.getTone(item);
+        double score = attributes.getScore(item);
+
+        int duplicate = textKeys.indexOf(key);
+        if (duplicate >= 0 && score <= scoreAt(duplicate)) return false;
+
+        int sameTone = 0;
+        int weakestSameTone = -1;
+        for (int i = 0; i < ranked.size(); i++) {
+            if (i != duplicate && attributes.getTone(ranked.get(i)) == tone) {
+                sameTone++;
+                weakestSameTone = i;
+            }
+        }
+
+        int victim = duplicate;
+        if (sameTone >= perToneQuota) {
+            // A duplicate of another tone can't also free a slot for this one
+            if (duplicate >= 0 || score <= scoreAt(weakestSameTone)) return false;
+            victim = weakestSameTone;
+        } else if (victim < 0 && ranked.size() >= capacity) {
+            int weakest = ranked.size() - 1;
+            if (score <= scoreAt(weakest)) return false;
+            victim = weakest;
+        }
+
+        if (victim >= 0) {
+            ranked.remove(victim);
+            textKeys.remove(victim);
+        }
+
+        int position = 0;
+        while (position < ranked.size() && scoreAt(position) >= score) {
+            position++;
+        }
+        ranked.add(position, item);
+        textKeys.add(position, key);
+        return true;
+    }
+
+    public boolean offerAll(Collection<? extends T> items) {
+        boolean changed = false;
+        for (T item : items) {
+            changed |= offer(item);
+        }
+        return changed;
+    }
+
+    public void clear() {
+        ranked.clear();
+        textKeys.clear();
+    }
+
+    // MARK: - Reading
+    /**
+     * Live, read-only view of the pool, best first.
+     */
+    public List<T> getItems() {
+        return Collections.unmodifiableList(ranked);
+    }
+
+    public int size() {
+        return ranked.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Hash of the text with case, whitespace and punctuation ignored, so
+     * "Sounds fun!" and "sounds fun" count as the same suggestion.
+     */
+    public static long textKey(CharSequence text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    private double scoreAt(int index) {
+        return attributes.getScore(ranked.get(index));
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * AI Dating Coach - Suggestion Record
+ * Mutable, reusable holder for one decoded suggestion. The tone is kept as its
+ * enum ordinal so this module doesn't depend on the app's model classes.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public final class SuggestionRecord {
+
+    private String text = "";
+    private int toneOrdinal = 0;
+    private double engagementPrediction = 0;
+    private String reasoning = "";
+
+    public SuggestionRecord() {
+    }
+
+    public SuggestionRecord(String text, int toneOrdinal, double engagementPrediction, String reasoning) {
+        set(text, toneOrdinal, engagementPrediction, reasoning);
+    }
+
+    public SuggestionRecord set(String text, int toneOrdinal, double engagementPrediction, String reasoning) {
+        this.text = text;
+        this.toneOrdinal = toneOrdinal;
+        this.engagementPrediction = engagementPrediction;
+        this.reasoning = reasoning;
+        return this;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getToneOrdinal() {
+        return toneOrdinal;
+    }
+
+    public double getEngagementPrediction() {
+        return engagementPrediction;
+    }
+
+    public String getReasoning() {
+        return reasoning;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestionRecord{tone=" + toneOrdinal
+            + ", engagement=" + engagementPrediction
+            + ", text=" + text + "}";
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * AI Dating Coach - Suggestion Strip
+ * Snapshot of what the suggestion strip last bound: the text, tone and score
+ * of each item in display order. Lets the keyboard skip handing the adapter a
+ * list that would redraw the same strip, like a final analysis result that
+ * repeats the suggestions already streamed in.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SuggestionStrip<T> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final SuggestionPool.Attributes<T> attributes;
+
+    // Parallel arrays, in display order
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private int[] tones = new int[INITIAL_CAPACITY];
+    private double[] scores = new double[INITIAL_CAPACITY];
+    private int size;
+
+    public SuggestionStrip(SuggestionPool.Attributes<T> attributes) {
+        this.attributes = attributes;
+    }
+
+    // MARK: - Binding
+    /**
+     * Record {@code items} as bound. Returns whether the strip changes: an
+     * item was added, removed or moved, or its text, tone or score differ.
+     */
+    public boolean bind(List<? extends T> items) {
+        boolean changed = items.size() != size;
+        ensureCapacity(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            String text = attributes.getText(item).toString();
+            int tone = attributes.getTone(item);
+            double score = attributes.getScore(item);
+
+            if (!changed && (tones[i] != tone || scores[i] != score || !texts[i].equals(text))) {
+                changed = true;
+            }
+            texts[i] = text;
+            tones[i] = tone;
+            scores[i] = score;
+        }
+        for (int i = items.size(); i < size; i++) {
+            texts[i] = null;
+        }
+        size = items.size();
+        return changed;
+    }
+
+    /**
+     * Record an empty strip. Returns whether anything was showing.
+     */
+    public boolean clear() {
+        boolean changed = size > 0;
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+        return changed;
+    }
+
+    // MARK: - Reading
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= texts.length) return;
+
+        int grown = Math.max(capacity, texts.length * 2);
+        texts = Arrays.copyOf(texts, grown);
+        tones = Arrays.copyOf(tones, grown);
+        scores = Arrays.copyOf(scores, grown);
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * AI Dating Coach - Text Context Buffer
+ * In-process model of the text before the cursor, kept up to date by the keyboard
+ * so analysis does not need an InputConnection round-trip on every pass
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public class TextContextBuffer {
+
+    // Enough for a typing burst; a longer backlog only costs an extra resync
+    private static final int MAX_PENDING_SELECTIONS = 16;
+
+    private final char[] buffer;
+    private int head = 0;   // Index of the oldest character
+    private int size = 0;
+    private int wordCount = 0;
+
+    // Absolute cursor position in the editor, -1 when unknown
+    private int cursorPosition = -1;
+    private boolean stale = true;
+
+    // Cursor positions our own edits will be reported at, oldest first. The
+    // editor's updates trail the edits, so several can be outstanding.
+    private final int[] pendingSelections = new int[MAX_PENDING_SELECTIONS];
+    private int pendingHead = 0;
+    private int pendingCount = 0;
+
+    public TextContextBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.buffer = new char[capacity];
+    }
+
+    // MARK: - Editing
+    public void append(char c) {
+        if (size == buffer.length) {
+            evictOldest();
+        }
+
+        if (!isWhitespace(c) && (size == 0 || isWhitespace(charAt(size - 1)))) {
+            wordCount++;
+        }
+
+        buffer[(head + size) % buffer.length] = c;
+        size++;
+
+        if (cursorPosition >= 0) {
+            cursorPosition++;
+            expectSelection(cursorPosition);
+        }
+    }
+
+    public void append(CharSequence text) {
+        if (text == null) return;
+
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    public void deleteBeforeCursor(int count) {
+        for (int i = 0; i < count; i++) {
+            if (cursorPosition > 0) {
+                cursorPosition--;
+            }
+            if (cursorPosition >= 0) {
+                expectSelection(cursorPosition);
+            }
+
+            if (size == 0) {
+                // We deleted past what we know about, the window has to be refilled
+                stale = true;
+                continue;
+            }
+
+            char removed = charAt(size - 1);
+            size--;
+
+            if (!isWhitespace(removed) && (size == 0 || isWhitespace(charAt(size - 1)))) {
+                wordCount--;
+            }
+        }
+    }
+
+    /**
+     * Replace the buffer contents with text read from the editor. Only the last
+     * {@code capacity} characters are retained.
+     */
+    public void resync(CharSequence textBeforeCursor) {
+        head = 0;
+        size = 0;
+        wordCount = 0;
+
+        if (textBeforeCursor != null) {
+            int start = Math.max(0, textBeforeCursor.length() - buffer.length);
+            for (int i = start; i < textBeforeCursor.length(); i++) {
+                char c = textBeforeCursor.charAt(i);
+                if (!isWhitespace(c) && (size == 0 || isWhitespace(buffer[size - 1]))) {
+                    wordCount++;
+                }
+                buffer[size++] = c;
+            }
+        }
+
+        stale = false;
+    }
+
+    /**
+     * Forget everything buffered, e.g. when a new editor is attached. The next
+     * read will resync from the InputConnection.
+     */
+    public void reset(int cursorPosition) {
+        head = 0;
+        size = 0;
+        wordCount = 0;
+        this.cursorPosition = cursorPosition;
+        stale = true;
+        pendingCount = 0;
+    }
+
+    // MARK: - Cursor Tracking
+    /**
+     * Called with the editor's reported selection. Updates for our own edits
+     * may arrive after later keystrokes, so a collapsed cursor at any position
+     * one of them is still expected to report is ours. Anything else means the
+     * editor changed underneath us.
+     */
+    public void onSelectionChanged(int selStart, int selEnd) {
+        if (selStart == selEnd) {
+            if (selEnd == cursorPosition) {
+                pendingCount = 0;
+                return;
+            }
+            for (int i = 0; i < pendingCount; i++) {
+                if (pendingSelections[(pendingHead + i) % MAX_PENDING_SELECTIONS] == selEnd) {
+                    // Updates arrive in order, so everything before it was reported or skipped
+                    pendingHead = (pendingHead + i + 1) % MAX_PENDING_SELECTIONS;
+                    pendingCount -= i + 1;
+                    return;
+                }
+            }
+        }
+
+        stale = true;
+        cursorPosition = selEnd;
+        pendingCount = 0;
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public int getCursorPosition() {
+        return cursorPosition;
+    }
+
+    // MARK: - Queries
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int length() {
+        return size;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public char charAt(int index) {
+        return buffer[(head + index) % buffer.length];
+    }
+
+    /**
+     * Copy the buffered text into {@code out} without allocating.
+     */
+    public void copyTo(StringBuilder out) {
+        out.setLength(0);
+        for (int i = 0; i < size; i++) {
+            out.append(charAt(i));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(size);
+        copyTo(builder);
+        return builder.toString();
+    }
+
+    // MARK: - Private Helpers
+    private void expectSelection(int position) {
+        if (pendingCount == MAX_PENDING_SELECTIONS) {
+            pendingHead = (pendingHead + 1) % MAX_PENDING_SELECTIONS;
+            pendingCount--;
+        }
+        pendingSelections[(pendingHead + pendingCount) % MAX_PENDING_SELECTIONS] = position;
+        pendingCount++;
+    }
+
+    private void evictOldest() {
+        char evicted = buffer[head];
+        head = (head + 1) % buffer.length;
+        size--;
+
+        // A word only disappears when its last remaining character is evicted
+        if (!isWhitespace(evicted) && (size == 0 || isWhitespace(buffer[head]))) {
+            wordCount--;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return Character.isWhitespace(c);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * AI Dating Coach - Typing Cadence
+ * Learns the user's inter-key rhythm so analysis fires once they pause,
+ * instead of after a fixed delay
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+public class TypingCadence {
+
+    private static final double SMOOTHING = 0.2;          // EWMA weight of the newest gap
+    private static final double PAUSE_DEVIATIONS = 3.0;   // How far above normal counts as a pause
+    private static final long MAX_CADENCE_GAP_MS = 1500;  // Longer gaps are pauses, not rhythm
+
+    public static final long MIN_DELAY_MS = 200;
+    public static final long MAX_DELAY_MS = 2000;
+    public static final long SENTENCE_END_DELAY_MS = 120;
+
+    public static final double DEFAULT_MEAN_GAP_MS = 250.0;
+    public static final double DEFAULT_GAP_VARIANCE = 120.0 * 120.0;
+
+    private double meanGapMs = DEFAULT_MEAN_GAP_MS;
+    private double gapVariance = DEFAULT_GAP_VARIANCE;
+    private long lastKeystrokeMs = -1;
+
+    // MARK: - Learning
+    public void recordKeystroke(long nowMs) {
+        if (lastKeystrokeMs >= 0) {
+            long gap = nowMs - lastKeystrokeMs;
+            if (gap > 0 && gap <= MAX_CADENCE_GAP_MS) {
+                double diff = gap - meanGapMs;
+                meanGapMs += SMOOTHING * diff;
+                gapVariance = (1 - SMOOTHING) * (gapVariance + SMOOTHING * diff * diff);
+            }
+        }
+        lastKeystrokeMs = nowMs;
+    }
+
+    /**
+     * Forget the last keystroke time, e.g. when the keyboard is hidden, so the
+     * gap across sessions isn't learned as typing rhythm.
+     */
+    public void resetSession() {
+        lastKeystrokeMs = -1;
+    }
+
+    // MARK: - Scheduling
+    /**
+     * How long to wait after the latest keystroke before analyzing.
+     */
+    public long getAnalysisDelayMs(boolean sentenceEnded) {
+        long pauseDelay = getPauseDelayMs();
+        return sentenceEnded ? Math.min(SENTENCE_END_DELAY_MS, pauseDelay) : pauseDelay;
+    }
+
+    public long getPauseDelayMs() {
+        long delay = Math.round(meanGapMs + PAUSE_DEVIATIONS * Math.sqrt(gapVariance));
+        return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, delay));
+    }
+
+    public static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?' || c == '\n';
+    }
+
+    // MARK: - Persistence
+    public double getMeanGapMs() {
+        return meanGapMs;
+    }
+
+    public double getGapVariance() {
+        return gapVariance;
+    }
+
+    public void restore(double meanGapMs, double gapVariance) {
+        if (meanGapMs > 0 && gapVariance >= 0) {
+            this.meanGapMs = meanGapMs;
+            this.gapVariance = gapVariance;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * AI Dating Coach - Usage Event Log
+ * Append-only on-disk log of suggestion usage events made of fixed-size,
+ * CRC-checked records, so events survive the IME process being killed
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class UsageEventLog {
+
+    public static final int RECORD_SIZE = 256;
+
+    private static final int RECORD_MAGIC = 0x55534531; // "USE1"
+    private static final int MAX_PLATFORM_BYTES = 23;
+    private static final int MAX_TEXT_BYTES = 200;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static final class Event {
+        public final long timestampMs;
+        public final int toneCode; // Stable wire code, never the enum ordinal
+        public final String platform;
+        public final float engagementPrediction;
+        public final String text;
+
+        public Event(long timestampMs, int toneCode, String platform, float engagementPrediction, String text) {
+            this.timestampMs = timestampMs;
+            this.toneCode = toneCode;
+            this.platform = platform;
+            this.engagementPrediction = engagementPrediction;
+            this.text = text;
+        }
+    }
+
+    private final File logFile;
+    private final File cursorFile;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long ackedOffset;   // Everything before this has been uploaded
+    private long endOffset;     // End of the last complete, valid record
+    private int unsyncedRecords = 0;
+
+    public UsageEventLog(File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.logFile = new File(directory, "usage_events.log");
+        this.cursorFile = new File(directory, "usage_events.cursor");
+        this.file = new RandomAccessFile(logFile, "rw");
+        this.channel = file.getChannel();
+
+        recover();
+    }
+
+    // MARK: - Writing
+    public synchronized void append(Event event) throws IOException {
+        record.clear();
+        record.putInt(RECORD_MAGIC);
+        record.putLong(event.timestampMs);
+        record.put((byte) event.toneCode);
+        putString(event.platform, MAX_PLATFORM_BYTES);
+        record.putFloat(event.engagementPrediction);
+        putString(event.text, MAX_TEXT_BYTES);
+        while (record.position() < CRC_OFFSET) {
+            record.put((byte) 0);
+        }
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        while (record.hasRemaining()) {
+            channel.write(record, endOffset + record.position());
+        }
+        endOffset += RECORD_SIZE;
+        unsyncedRecords++;
+    }
+
+    /**
+     * Make appended records durable. Callers batch this rather than syncing
+     * every event.
+     */
+    public synchronized void sync() throws IOException {
+        if (unsyncedRecords == 0) return;
+        channel.force(false);
+        unsyncedRecords = 0;
+    }
+
+    public synchronized int getUnsyncedCount() {
+        return unsyncedRecords;
+    }
+
+    // MARK: - Reading
+    public synchronized int getPendingCount() {
+        return (int) ((endOffset - ackedOffset) / RECORD_SIZE);
+    }
+
+    /**
+     * Read up to {@code max} events that have not been acknowledged yet.
+     */
+    public synchronized int readPending(int max, List<Event> out) throws IOException {
+        int count = 0;
+        long offset = ackedOffset;
+        while (count < max && offset < endOffset) {
+            Event event = readRecord(offset);
+            if (event == null) break;
+            out.add(event);
+            offset += RECORD_SIZE;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Mark the oldest {@code count} pending events as uploaded. Once everything
+     * is acknowledged the log is truncated.
+     */
+    public synchronized void acknowledge(int count) throws IOException {
+        ackedOffset = Math.min(endOffset, ackedOffset + (long) count * RECORD_SIZE);
+
+        if (ackedOffset == endOffset) {
+            channel.truncate(0);
+            channel.force(false);
+            ackedOffset = 0;
+            endOffset = 0;
+            unsyncedRecords = 0;
+        }
+        writeCursor();
+    }
+
+    public synchronized void close() throws IOException {
+        sync();
+        file.close();
+    }
+
+    // MARK: - Recovery
+    private void recover() throws IOException {
+        ackedOffset = readCursor();
+
+        // A torn or corrupt record marks the end of the log
+        long size = channel.size();
+        long offset = 0;
+        while (offset + RECORD_SIZE <= size && readRecord(offset) != null) {
+            offset += RECORD_SIZE;
+        }
+        endOffset = offset;
+        if (endOffset < size) {
+            channel.truncate(endOffset);
+        }
+        if (ackedOffset > endOffset) {
+            ackedOffset = endOffset;
+        }
+    }
+
+    private Event readRecord(long offset) throws IOException {
+        record.clear();
+        while (record.hasRemaining()) {
+            if (channel.read(record, offset + record.position()) < 0) return null;
+        }
+
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.flip();
+        if (record.getInt(CRC_OFFSET) != (int) crc.getValue()) return null;
+        if (record.getInt() != RECORD_MAGIC) return null;
+
+        long timestamp = record.getLong();
+        int tone = record.get() & 0xff;
+        String platform = getString(MAX_PLATFORM_BYTES);
+        float engagement = record.getFloat();
+        String text = getString(MAX_TEXT_BYTES);
+        return new Event(timestamp, tone, platform, engagement, text);
+    }
+
+    private long readCursor() {
+        if (!cursorFile.exists()) return 0;
+
+        try {
+            RandomAccessFile cursor = new RandomAccessFile(cursorFile, "r");
+            try {
+                long offset = cursor.readLong();
+                long check = cursor.readLong();
+                return (check == ~offset && offset % RECORD_SIZE == 0) ? offset : 0;
+            } finally {
+                cursor.close();
+            }
+        } catch (IOException e) {
+            // Re-uploading a few events beats losing them
+            return 0;
+        }
+    }
+
+    private void writeCursor() throws IOException {
+        File temp = new File(cursorFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            buffer.putLong(ackedOffset);
+            buffer.putLong(~ackedOffset);
+            out.write(buffer.array());
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(cursorFile)) {
+            throw new IOException("Cannot replace " + cursorFile);
+        }
+    }
+
+    // MARK: - Encoding Helpers
+    private void putString(String value, int maxBytes) {
+        byte[] bytes = value != null ? value.getBytes(UTF_8) : new byte[0];
+        int length = Math.min(bytes.length, maxBytes);
+
+        // Don't cut a multi-byte character in half
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xc0) == 0x80) {
+            length--;
+        }
+
+        record.put((byte) length);
+        record.put(bytes, 0, length);
+        for (int i = length; i < maxBytes; i++) {
+            record.put((byte) 0);
+        }
+    }
+
+    private String getString(int maxBytes) {
+        int length = Math.min(record.get() & 0xff, maxBytes);
+        String value = new String(record.array(), record.position(), length, UTF_8);
+        record.position(record.position() + maxBytes);
+        return value;
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * AI Dating Coach - Analysis Pipeline Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class AnalysisPipelineTest {
+
+    private static final List<String> SUGGESTIONS = Arrays.asList("How was the hike?", "Same here!");
+
+    private FakeHost host;
+    private KeyboardMetrics metrics;
+    private AnalysisPipeline<String> pipeline;
+
+    @Before
+    public void setUp() {
+        host = new FakeHost();
+        metrics = new KeyboardMetrics();
+        pipeline = createPipeline(RequestQuota.Tier.BLAZE);
+    }
+
+    @Test
+    public void debounceRunsOnceForABurstOfKeys() {
+        pipeline.scheduleAnalysis(false);
+        host.advance(50);
+        pipeline.scheduleAnalysis(false);
+        host.advance(TypingCadence.MAX_DELAY_MS);
+
+        assertEquals(1, host.analysesDue);
+    }
+
+    @Test
+    public void resultsForChangedTextAreDropped() {
+        assertTrue(pipeline.requestAnalysis("going hiking this weekend", "tinder", 1));
+        AnalysisPipeline.Request<String> request = host.lastRequest;
+
+        pipeline.scheduleAnalysis(false);
+        assertTrue(host.calls.get(0).cancelled);
+        assertFalse(pipeline.isRequestInFlight());
+
+        pipeline.onAttemptSuccess(request, 0, SUGGESTIONS);
+        assertNull(host.result);
+        assertEquals(1, metrics.getRequestsCancelled());
+        assertEquals(1, metrics.getStaleResults());
+    }
+
+    @Test
+    public void currentResultReachesTheStrip() {
+        pipeline.requestAnalysis("going hiking this weekend", "tinder", 1);
+        pipeline.onAttemptSuccess(host.lastRequest, 0, SUGGESTIONS);
+
+        assertEquals(SUGGESTIONS, host.result);
+        assertFalse(pipeline.isAnalyzing());
+        assertEquals(CircuitBreaker.State.CLOSED, pipeline.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void answeredRequestLeavesNoTimers() {
+        pipeline.setHedgingEnabled(true);
+        for (int i = 0; i < 20; i++) {
+            metrics.network.recordMicros(100000);
+        }
+
+        pipeline.requestAnalysis("going hiking this weekend", "tinder", 1);
+        pipeline.onAttemptSuccess(host.lastRequest, 0, SUGGESTIONS);
+        assertTrue(host.timers.isEmpty());
+
+        pipeline.requestMoreSuggestions("going hiking this weekend", "tinder", SUGGESTIONS);
+        pipeline.onAttemptSuccess(host.lastRequest, 0, SUGGESTIONS);
+        assertTrue(host.timers.isEmpty());
+
+        host.advance(AnalysisPipeline.SLOW_CALL_MS);
+        assertNull(host.slowRequest);
+        assertEquals(2, host.calls.size());
+    }
+
+    @Test
+    public void nothingIsShownAfterSend() {
+        pipeline.requestAnalysis("see you at eight", "tinder", 1);
+        AnalysisPipeline.Request<String> request = host.lastRequest;
+        send();
+        host.advance(AnalysisPipeline.SLOW_CALL_MS);
+        pipeline.onAttemptSuccess(request, 0, SUGGESTIONS);
+
+        assertNull(host.slowRequest);
+        assertNull(host.result);
+
+        pipeline.scheduleAnalysis(true);
+        send();
+        host.advance(TypingCadence.MAX_DELAY_MS);
+        assertEquals(0, host.analysesDue);
+    }
+
+    @Test
+    public void hedgeThatAnswersFirstWins() {
+        pipeline.setHedgingEnabled(true);
+        for (int i = 0; i < 20; i++) {
+            metrics.network.recordMicros(100000);
+        }
+
+        pipeline.requestAnalysis("going hiking this weekend", "tinder", 1);
+        host.advance(1000);
+        assertEquals(2, host.calls.size());
+
+        pipeline.onAttemptSuccess(host.lastRequest, 1, SUGGESTIONS);
+        assertEquals(SUGGESTIONS, host.result);
+        assertTrue(host.calls.get(0).cancelled);
+        assertEquals(1, metrics.getRequestsHedged());
+        assertEquals(1, metrics.getHedgeWins());
+    }
+
+    @Test
+    public void slowCallFallsBackButStillShowsTheAnswer() {
+        pipeline.requestAnalysis("going hiking this weekend", "tinder", 1);
+        AnalysisPipeline.Request<String> request = host.lastRequest;
+
+        host.advance(AnalysisPipeline.SLOW_CALL_MS);
+        assertSame(request, host.slowRequest);
+
+        pipeline.onAttemptSuccess(request, 0, SUGGESTIONS);
+        assertEquals(SUGGESTIONS, host.result);
+    }
+
+    @Test
+    public void failingBackendOpensTheBreaker() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(pipeline.requestAnalysis("going hiking this weekend", "tinder", i));
+            pipeline.onAttemptError(host.lastRequest, 0);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, pipeline.getCircuitBreaker().getState());
+        assertFalse(pipeline.requestAnalysis("going hiking this weekend", "tinder", 7));
+        assertEquals(1, metrics.getRequestsShortCircuited());
+        assertEquals(6, host.failures);
+    }
+
+    @Test
+    public void errorsFromCancelledRequestsAreNotFailures() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(pipeline.requestAnalysis("going hiking this weekend", "tinder", i));
+            AnalysisPipeline.Request<String> request = host.lastRequest;
+
+            // Newer typing interrupts the call, which then reports an error
+            pipeline.scheduleAnalysis(false);
+            pipeline.onAttemptError(request, 0);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, pipeline.getCircuitBreaker().getState());
+        assertTrue(pipeline.requestAnalysis("going hiking this weekend", "tinder", 7));
+        assertEquals(0, host.failures);
+    }
+
+    @Test
+    public void droppedRequestRecordsNoOutcome() {
+        host.queueFull = true;
+        for (int i = 0; i < 6; i++) {
+            assertFalse(pipeline.requestAnalysis("going hiking this weekend", "tinder", i));
+        }
+        assertFalse(pipeline.isAnalyzing());
+        assertTrue(host.timers.isEmpty());
+
+        // Evicted from the queue after it was accepted: released at the slow-call check
+        host.queueFull = false;
+        assertTrue(pipeline.requestAnalysis("going hiking this weekend", "tinder", 7));
+        host.calls.get(host.calls.size() - 1).cancelled = true;
+        host.advance(AnalysisPipeline.SLOW_CALL_MS);
+
+        assertFalse(pipeline.isAnalyzing());
+        assertEquals(1, host.failures);
+        assertEquals(CircuitBreaker.State.CLOSED, pipeline.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void tierWithoutQuotaStaysOnDevice() {
+        pipeline = createPipeline(RequestQuota.Tier.SPARK);
+
+        assertFalse(pipeline.requestAnalysis("going hiking this weekend", "tinder", 1));
+        assertFalse(pipeline.admitSpeculativeRequest());
+        assertEquals(2, metrics.getRequestsThrottled());
+        assertTrue(host.calls.isEmpty());
+    }
+
+    // The send action, as AIKeyboardService.handleDoneKey does it
+    private void send() {
+        pipeline.cancelPendingAnalysis();
+        pipeline.cancelInFlightRequest();
+    }
+
+    private AnalysisPipeline<String> createPipeline(RequestQuota.Tier tier) {
+        AnalysisPipeline<String> created = new AnalysisPipeline<>(host, new RequestQuota(tier, 0),
+            new TypingCadence(), metrics);
+        created.setAppProfile(AppProfile.TINDER);
+        return created;
+    }
+
+    private static final class FakeCall implements AnalysisPipeline.Call {
+        boolean cancelled = false;
+
+        @Override
+        public boolean cancel() {
+            boolean wasRunning = !cancelled;
+            cancelled = true;
+            return wasRunning;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static final class Timer {
+        final Runnable runnable;
+        final long atMs;
+
+        Timer(Runnable runnable, long atMs) {
+            this.runnable = runnable;
+            this.atMs = atMs;
+        }
+    }
+
+    private static final class FakeHost implements AnalysisPipeline.Host<String> {
+        long nowMs = 0;
+        final List<Timer> timers = new ArrayList<>();
+        final List<FakeCall> calls = new ArrayList<>();
+        AnalysisPipeline.Request<String> lastRequest;
+        AnalysisPipeline.Request<String> slowRequest;
+        List<String> result;
+        int analysesDue = 0;
+        int failures = 0;
+        boolean queueFull = false;
+
+        void advance(long ms) {
+            long untilMs = nowMs + ms;
+            while (true) {
+                Timer next = null;
+                for (Timer timer : timers) {
+                    if (timer.atMs <= untilMs && (next == null || timer.atMs < next.atMs)) {
+                        next = timer;
+                    }
+                }
+                if (next == null) break;
+
+                timers.remove(next);
+                nowMs = next.atMs;
+                next.runnable.run();
+            }
+            nowMs = untilMs;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return nowMs;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return nowMs;
+        }
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMs) {
+            timers.add(new Timer(runnable, nowMs + delayMs));
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            Iterator<Timer> iterator = timers.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().runnable == runnable) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        @Override
+        public void onAnalysisDue() {
+            analysesDue++;
+        }
+
+        @Override
+        public AnalysisPipeline.Call startAttempt(AnalysisPipeline.Request<String> request, int attempt) {
+            lastRequest = request;
+            FakeCall call = new FakeCall();
+            call.cancelled = queueFull;
+            calls.add(call);
+            return call;
+        }
+
+        @Override
+        public void onAnalysisPartial(String suggestion, boolean first) {
+        }
+
+        @Override
+        public void onAnalysisResult(AnalysisPipeline.Request<String> request, List<String> suggestions) {
+            result = suggestions;
+        }
+
+        @Override
+        public void onAnalysisFailed(AnalysisPipeline.Request<String> request) {
+            failures++;
+        }
+
+        @Override
+        public void onAnalysisSlow(AnalysisPipeline.Request<String> request) {
+            slowRequest = request;
+        }
+
+        @Override
+        public void onAnalysisCancelled() {
+        }
+    }
+}
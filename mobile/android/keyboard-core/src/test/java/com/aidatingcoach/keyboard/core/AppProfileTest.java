@@ -0,0 +1,44 @@
+/**
+ * AI Dating Coach - App Profile Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class AppProfileTest {
+
+    @Test
+    public void resolvesDatingAppsByPackage() {
+        assertSame(AppProfile.TINDER, AppProfile.forPackage("com.tinder"));
+        assertSame(AppProfile.BUMBLE, AppProfile.forPackage("com.bumble.app"));
+        assertSame(AppProfile.HINGE, AppProfile.forPackage("co.hinge.app"));
+    }
+
+    @Test
+    public void otherEditorsGetAnalysisOff() {
+        assertSame(AppProfile.DISABLED, AppProfile.forPackage("com.google.android.apps.messaging"));
+        assertSame(AppProfile.DISABLED, AppProfile.forPackage(null));
+        assertFalse(AppProfile.forPackage("").isAnalysisEnabled());
+    }
+
+    @Test
+    public void packageAndPlatformAgree() {
+        AppProfile[] profiles = {AppProfile.TINDER, AppProfile.BUMBLE, AppProfile.HINGE};
+        String[] packages = {"com.tinder", "com.bumble.app", "co.hinge.app"};
+        for (int i = 0; i < profiles.length; i++) {
+            assertEquals(profiles[i], AppProfile.forPlatform(AppProfile.forPackage(packages[i]).getPlatform()));
+        }
+    }
+
+    @Test
+    public void clampsDebounceToTheAppRange() {
+        assertEquals(150, AppProfile.TINDER.clampDebounceMs(10, false));
+        assertEquals(1500, AppProfile.TINDER.clampDebounceMs(9000, false));
+        assertEquals(10, AppProfile.TINDER.clampDebounceMs(10, true));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * AI Dating Coach - Circuit Breaker Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private static final long SLOW_CALL_MS = 4000;
+    private static final long OPEN_MS = 5000;
+    private static final long MAX_OPEN_MS = 12000;
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void opensAtFailureRateAndRefuses() {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess(100, 0);
+        breaker.onSuccess(100, 0);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(OPEN_MS - 1));
+    }
+
+    @Test
+    public void slowCallsCountAsFailures() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(SLOW_CALL_MS + 1, 0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenLetsOneProbeThrough() {
+        CircuitBreaker breaker = openBreaker();
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(OPEN_MS + 1));
+
+        breaker.onSuccess(100, OPEN_MS + 100);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(OPEN_MS + 100));
+    }
+
+    @Test
+    public void failedProbesBackOffUpToTheCap() {
+        CircuitBreaker breaker = openBreaker();
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        breaker.onFailure(OPEN_MS);
+        assertFalse(breaker.tryAcquire(OPEN_MS + 2 * OPEN_MS - 1));
+        assertTrue(breaker.tryAcquire(OPEN_MS + 2 * OPEN_MS));
+
+        long nowMs = 3 * OPEN_MS;
+        breaker.onFailure(nowMs);
+        assertFalse(breaker.tryAcquire(nowMs + MAX_OPEN_MS - 1));
+        assertTrue(breaker.tryAcquire(nowMs + MAX_OPEN_MS));
+    }
+
+    @Test
+    public void cancelledProbeFreesTheSlot() {
+        CircuitBreaker breaker = openBreaker();
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        breaker.onCancelled();
+        assertTrue(breaker.tryAcquire(OPEN_MS + 1));
+    }
+
+    @Test
+    public void slowProbeReopens() {
+        CircuitBreaker breaker = openBreaker();
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        assertFalse(breaker.tryAcquire(OPEN_MS + SLOW_CALL_MS));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(8, 4, 0.5, SLOW_CALL_MS, OPEN_MS, MAX_OPEN_MS);
+    }
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(0);
+        }
+        return breaker;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * AI Dating Coach - Context Session Server Tests
+ * Drives ContextDeltaEncoder against the reference server and checks both
+ * ends agree on the context after every request.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ContextSessionServerTest {
+
+    private static final String BASE = "Them: what are you up to this weekend?\nMe: not much, maybe a hike";
+
+    @Test
+    public void deltasRoundTrip() {
+        ContextSessionServer server = new ContextSessionServer(4);
+        ContextDeltaEncoder encoder = new ContextDeltaEncoder("session");
+
+        String[] drafts = {
+            BASE,
+            BASE + " on Saturday",                           // Append
+            BASE + " on Sunday",                             // Edit at the end
+            BASE.replace("maybe", "probably") + " on Sunday", // Edit in the middle
+            BASE.substring(0, BASE.length() - 7),            // Delete
+            "Them: \u00bfqu\u00e9 tal? \ud83d\ude0a " + BASE.substring(0, BASE.length() - 7), // Non-ASCII insert
+        };
+
+        for (String draft : drafts) {
+            ContextDelta delta = encoder.encode(draft);
+            ContextSessionServer.Result result = server.apply(delta);
+
+            assertTrue(delta.toString(), result.isAcknowledged());
+            assertEquals(draft, result.getContext());
+            encoder.acknowledge(result.getHash());
+        }
+
+        assertEquals(1, encoder.getFullCount());
+        assertEquals(drafts.length - 1, encoder.getDeltaCount());
+        assertTrue(encoder.getCompressionRatio() < 1.0);
+    }
+
+    @Test
+    public void deltaAppliesWhenAnEarlierRequestWasNeverAcknowledged() {
+        ContextSessionServer server = new ContextSessionServer(4);
+        ContextDeltaEncoder encoder = new ContextDeltaEncoder("session");
+        encoder.acknowledge(server.apply(encoder.encode(BASE)).getHash());
+
+        // Cancelled: the server applied it but the client never saw the ack
+        server.apply(encoder.encode(BASE + " or two"));
+
+        ContextDelta delta = encoder.encode(BASE + " or three");
+        assertFalse(delta.isFull());
+        assertEquals(BASE + " or three", server.apply(delta).getContext());
+    }
+
+    @Test
+    public void evictedSessionForcesFullResync() {
+        ContextSessionServer server = new ContextSessionServer(1);
+        ContextDeltaEncoder encoder = new ContextDeltaEncoder("session");
+        encoder.acknowledge(server.apply(encoder.encode(BASE)).getHash());
+
+        // Another chat takes the only session slot
+        server.apply(ContextDelta.full("other", "hi"));
+
+        ContextDelta delta = encoder.encode(BASE + "!");
+        assertFalse(delta.isFull());
+        assertTrue(server.apply(delta).isResyncRequired());
+
+        encoder.resync();
+        ContextDelta retry = encoder.encode(BASE + "!");
+        assertTrue(retry.isFull());
+
+        ContextSessionServer.Result result = server.apply(retry);
+        assertEquals(BASE + "!", result.getContext());
+        assertEquals(1, encoder.getResyncCount());
+    }
+
+    @Test
+    public void divergedBaseForcesResync() {
+        ContextSessionServer server = new ContextSessionServer(4);
+        server.apply(ContextDelta.full("session", BASE));
+
+        // Claims the server's base but spans past its end
+        ContextDelta outOfRange = ContextDelta.edit("session", ContextDelta.hashOf(BASE),
+            BASE.length(), 5, "", ContextDelta.hashOf(BASE), BASE.length());
+        assertTrue(server.apply(outOfRange).isResyncRequired());
+
+        // Result hash doesn't match what applying the span produces
+        ContextDelta wrongHash = ContextDelta.edit("session", ContextDelta.hashOf(BASE),
+            BASE.length(), 0, "!", ContextDelta.hashOf(BASE + "?"), BASE.length() + 1);
+        assertTrue(server.apply(wrongHash).isResyncRequired());
+    }
+
+    @Test
+    public void unknownBaseForcesResync() {
+        ContextSessionServer server = new ContextSessionServer(4);
+        ContextDelta delta = ContextDelta.edit("session", 42, 0, 0, "hi", ContextDelta.hashOf("hi"), 2);
+
+        assertTrue(server.apply(delta).isResyncRequired());
+        assertEquals(0, server.getSessionCount());
+    }
+
+    @Test
+    public void extendHashMatchesHashOfTheWhole() {
+        String prefix = BASE;
+        String whole = BASE + " \ud83d\ude0a";
+
+        assertEquals(ContextDelta.hashOf(whole),
+            ContextDelta.extendHash(ContextDelta.hashOf(prefix), whole, prefix.length(), whole.length()));
+    }
+}
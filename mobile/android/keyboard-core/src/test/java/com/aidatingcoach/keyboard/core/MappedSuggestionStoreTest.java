@@ -0,0 +1,166 @@
+/**
+ * AI Dating Coach - Mapped Suggestion Store Tests
+ * Damages the backing file between opens the way a kill or a format change
+ * would, and checks the store comes back empty rather than serving garbage.
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+public class MappedSuggestionStoreTest {
+
+    // Mirrors the file layout in MappedSuggestionStore
+    private static final int HEADER_SIZE = 64;
+    private static final int LENGTH_OFFSET = 20;
+    private static final int PAYLOAD_OFFSET = 24;
+
+    private static final int SLOT_COUNT = 8;
+    private static final int SLOT_SIZE = 128;
+    private static final long TTL_MS = 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void survivesReopen() throws IOException {
+        File file = folder.newFile("suggestions.bin");
+        MappedSuggestionStore store = open(file, SLOT_COUNT, SLOT_SIZE);
+        store.put(3, payload("hello"));
+        store.close();
+
+        assertArrayEquals(payload("hello"), open(file, SLOT_COUNT, SLOT_SIZE).get(3));
+    }
+
+    @Test
+    public void flippedPayloadBitFailsTheCrc() throws IOException {
+        File file = folder.newFile("suggestions.bin");
+        MappedSuggestionStore store = open(file, SLOT_COUNT, SLOT_SIZE);
+        store.put(3, payload("hello"));
+        store.close();
+
+        long offset = slotOffset(3) + PAYLOAD_OFFSET + 1;
+        poke(file, offset, peek(file, offset) ^ 0x01);
+
+        store = open(file, SLOT_COUNT, SLOT_SIZE);
+        assertNull(store.get(3));
+        assertTrue(store.toString().contains("corrupt=1"));
+    }
+
+    @Test
+    public void recordTornMidWriteReadsAsEmpty() throws IOException {
+        File file = folder.newFile("suggestions.bin");
+        MappedSuggestionStore store = open(file, SLOT_COUNT, SLOT_SIZE);
+        store.put(3, payload("hello"));
+        store.close();
+
+        // Length from a newer, longer write whose payload and CRC never landed
+        poke(file, slotOffset(3) + LENGTH_OFFSET + 3, 40);
+
+        assertNull(open(file, SLOT_COUNT, SLOT_SIZE).get(3));
+    }
+
+    @Test
+    public void tornHeaderStartsEmpty() throws IOException {
+        File file = folder.newFile("suggestions.bin");
+        MappedSuggestionStore store = open(file, SLOT_COUNT, SLOT_SIZE);
+        store.put(3, payload("hello"));
+        store.close();
+
+        poke(file, 0, 0);
+
+        store = open(file, SLOT_COUNT, SLOT_SIZE);
+        assertNull(store.get(3));
+        assertTrue(store.put(3, payload("again")));
+        assertArrayEquals(payload("again"), store.get(3));
+    }
+
+    @Test
+    public void geometryChangeStartsEmpty() throws IOException {
+        File file = folder.newFile("suggestions.bin");
+        MappedSuggestionStore store = open(file, SLOT_COUNT, SLOT_SIZE);
+        store.put(3, payload("hello"));
+        store.close();
+
+        // Same file length, different slot layout: only the header tells them apart
+        store = open(file, SLOT_COUNT * 2, SLOT_SIZE / 2);
+        assertNull(store.get(3));
+        store.close();
+
+        // Different file length
+        assertNull(open(file, SLOT_COUNT * 2, SLOT_SIZE).get(3));
+    }
+
+    @Test
+    public void evictsUnreferencedRecordsFirst() throws IOException {
+        MappedSuggestionStore store = open(folder.newFile("suggestions.bin"), SLOT_COUNT, SLOT_SIZE);
+        for (long key = 0; key < SLOT_COUNT; key++) {
+            store.put(key, payload("v" + key));
+        }
+        for (long key = 0; key < 3; key++) {
+            assertNotNull(store.get(key));
+        }
+
+        // Every key shares one probe window; the hand skips the three just read
+        store.put(SLOT_COUNT, payload("new"));
+
+        assertNull(store.get(3));
+        for (long key = 0; key < SLOT_COUNT; key++) {
+            if (key != 3) {
+                assertNotNull("key " + key, store.get(key));
+            }
+        }
+        assertNotNull(store.get(SLOT_COUNT));
+    }
+
+    @Test
+    public void rejectsOversizedPayloads() throws IOException {
+        MappedSuggestionStore store = open(folder.newFile("suggestions.bin"), SLOT_COUNT, SLOT_SIZE);
+        assertFalse(store.put(1, new byte[store.getMaxPayloadBytes() + 1]));
+        assertTrue(store.put(1, new byte[store.getMaxPayloadBytes()]));
+    }
+
+    private static MappedSuggestionStore open(File file, int slotCount, int slotSize) throws IOException {
+        return new MappedSuggestionStore(file, slotCount, slotSize, TTL_MS);
+    }
+
+    private static long slotOffset(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private static byte[] payload(String text) {
+        return text.getBytes(SuggestionCodec.UTF_8);
+    }
+
+    private static int peek(File file, long offset) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.seek(offset);
+            return raf.read();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void poke(File file, long offset, int value) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(offset);
+            raf.write(value);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * AI Dating Coach - Phrase Index Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PhraseIndexTest {
+
+    private static final String TABLE = "# trigger\ttone\tscore\ttext\treasoning\n"
+        + "\n"
+        + "weekend\tcasual\t6\tAny plans for the weekend?\tOpen question\n"
+        + "this weekend\tflirty\t7\tThis weekend sounds better with you\tBold\n"
+        + "this weekend\tcasual\t9\tWhat are you up to this weekend?\tSpecific\n"
+        + "*\tthoughtful\t8\tWhat made you smile today?\tFallback\n"
+        + "*\tcasual\t5\tany plans for the WEEKEND?\tDuplicate text\n"
+        + "broken\tcasual\tnot-a-score\tSkipped\tBad score\n"
+        + "short\tcasual\t5\n";
+
+    @Test
+    public void skipsCommentsAndMalformedLines() throws IOException {
+        assertEquals(5, load().size());
+    }
+
+    @Test
+    public void longerTriggersRankFirst() throws IOException {
+        List<PhraseIndex.Phrase> out = new ArrayList<>();
+        int added = load().suggest("Free this weekend", null, 1, out);
+
+        assertEquals(1, added);
+        assertEquals("What are you up to this weekend?", out.get(0).getText());
+    }
+
+    @Test
+    public void spreadsAcrossTonesBeforeRepeating() throws IOException {
+        List<PhraseIndex.Phrase> out = new ArrayList<>();
+        load().suggest("free this weekend", null, 3, out);
+
+        assertEquals(3, out.size());
+        assertEquals("casual", out.get(0).getTone());
+        assertEquals("flirty", out.get(1).getTone());
+        assertEquals("thoughtful", out.get(2).getTone());
+    }
+
+    @Test
+    public void dropsDuplicateTextIgnoringCase() throws IOException {
+        List<PhraseIndex.Phrase> out = new ArrayList<>();
+        load().suggest("weekend", "casual", 5, out);
+
+        assertEquals(1, out.size());
+        assertEquals("Any plans for the weekend?", out.get(0).getText());
+    }
+
+    @Test
+    public void repeatedLookupsReuseScratchStateCleanly() throws IOException {
+        PhraseIndex index = load();
+
+        List<PhraseIndex.Phrase> first = new ArrayList<>();
+        index.suggest("free this weekend", null, 3, first);
+        List<PhraseIndex.Phrase> shorter = new ArrayList<>();
+        index.suggest("Weekend!", "casual", 3, shorter);
+        List<PhraseIndex.Phrase> again = new ArrayList<>();
+        index.suggest("free this weekend", null, 3, again);
+
+        assertEquals(first, again);
+        assertEquals(1, shorter.size());
+        assertEquals("Any plans for the weekend?", shorter.get(0).getText());
+    }
+
+    @Test
+    public void lastTokensDropsPunctuation() {
+        assertArrayEquals(new String[] {"you're", "free", "tonight"},
+            PhraseIndex.lastTokens("Wait, you're FREE tonight?!", 3));
+        assertArrayEquals(new String[0], PhraseIndex.lastTokens("?! ", 3));
+    }
+
+    private static PhraseIndex load() throws IOException {
+        return PhraseIndex.load(new StringReader(TABLE));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * AI Dating Coach - Priority Task Scheduler Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PriorityTaskSchedulerTest {
+
+    private PriorityTaskScheduler scheduler;
+    private CountDownLatch release;
+    private CountDownLatch busy;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        scheduler = new PriorityTaskScheduler(2, 2, null);
+        release = new CountDownLatch(1);
+
+        // Occupy both workers so everything submitted afterwards stays queued
+        busy = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, null, blocker());
+        }
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void newerTaskWithSameKeySupersedesQueuedOne() throws Exception {
+        Future<String> first = scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, "analysis", value("first"));
+        Future<String> second = scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, "analysis", value("second"));
+
+        assertTrue(first.isCancelled());
+        assertEquals(1, scheduler.getMergedCount());
+        assertEquals(1, scheduler.getQueuedCount());
+
+        release.countDown();
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullQueueEvictsLowerPriorityWork() {
+        Future<String> telemetry = scheduler.submit(PriorityTaskScheduler.Priority.TELEMETRY, null, value("telemetry"));
+        scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, "a", value("a"));
+        Future<String> interactive = scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, "b", value("b"));
+
+        assertTrue(telemetry.isCancelled());
+        assertFalse(interactive.isCancelled());
+
+        // Nothing below interactive left to evict, so the newcomer is the one dropped
+        Future<String> dropped = scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, "c", value("c"));
+        assertTrue(dropped.isCancelled());
+        assertEquals(2, scheduler.getDroppedCount());
+    }
+
+    @Test
+    public void shutdownCancelsQueuedAndRejectsNewWork() {
+        Future<String> queued = scheduler.submit(PriorityTaskScheduler.Priority.PREFETCH, null, value("prefetch"));
+        scheduler.shutdownNow();
+
+        assertTrue(queued.isCancelled());
+        assertTrue(scheduler.submit(PriorityTaskScheduler.Priority.INTERACTIVE, null, value("late")).isCancelled());
+        assertTrue(scheduler.isShutdown());
+    }
+
+    private Runnable blocker() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static Callable<String> value(final String value) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                return value;
+            }
+        };
+    }
+}
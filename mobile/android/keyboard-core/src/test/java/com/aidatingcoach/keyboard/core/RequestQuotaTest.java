@@ -0,0 +1,102 @@
+/**
+ * AI Dating Coach - Request Quota Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class RequestQuotaTest {
+
+    private static final long MINUTE_MS = 60 * 1000;
+
+    @Test
+    public void burstThenRefill() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.FLAME, 0);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(0));
+        }
+        assertEquals(RequestQuota.Denial.BURST, quota.tryAcquire(0));
+
+        // Flame refills twelve a minute, so one every five seconds
+        assertEquals(RequestQuota.Denial.BURST, quota.tryAcquire(4000));
+        assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(5000));
+    }
+
+    @Test
+    public void freeTierNeverGoesOut() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.SPARK, 0);
+        assertEquals(RequestQuota.Denial.BURST, quota.tryAcquire(MINUTE_MS));
+    }
+
+    @Test
+    public void periodAllowanceComesFromTheServer() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.BLAZE, 0);
+        quota.onServerLimits(1, 10 * MINUTE_MS, 0);
+
+        assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(0));
+        assertEquals(RequestQuota.Denial.PERIOD, quota.tryAcquire(0));
+
+        // A new period starts unknown until the next response
+        assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(10 * MINUTE_MS));
+        assertEquals(RequestQuota.UNKNOWN, quota.getPeriodRemaining());
+    }
+
+    @Test
+    public void exhaustedPeriodWithoutResetTimeRecovers() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.BLAZE, 0);
+        quota.onServerLimits(0, 0, 0);
+
+        assertEquals(RequestQuota.Denial.PERIOD, quota.tryAcquire(MINUTE_MS));
+        assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(60 * MINUTE_MS));
+    }
+
+    @Test
+    public void appTierNamesAreAccepted() {
+        assertEquals(RequestQuota.Tier.SPARK, RequestQuota.Tier.fromId("free", null));
+        assertEquals(RequestQuota.Tier.FLAME, RequestQuota.Tier.fromId("premium", null));
+        assertEquals(RequestQuota.Tier.BLAZE, RequestQuota.Tier.fromId("pro", null));
+        assertEquals(RequestQuota.Tier.BLAZE, RequestQuota.Tier.fromId("elite", null));
+        assertEquals(RequestQuota.Tier.FLAME, RequestQuota.Tier.fromId("Flame", null));
+        assertNull(RequestQuota.Tier.fromId("platinum", null));
+        assertEquals(RequestQuota.Tier.SPARK, RequestQuota.Tier.fromId(null, RequestQuota.Tier.SPARK));
+    }
+
+    @Test
+    public void rateLimitBlocksUntilRetryAfter() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.BLAZE, 0);
+        quota.onRateLimited(30 * 1000, 0);
+
+        assertEquals(RequestQuota.Denial.RATE_LIMITED, quota.tryAcquire(29 * 1000));
+        assertEquals(RequestQuota.Denial.NONE, quota.tryAcquire(30 * 1000));
+    }
+
+    @Test
+    public void retryAfterIsCapped() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.BLAZE, 0);
+        quota.onRateLimited(7 * 24 * 60 * MINUTE_MS, 0);
+
+        assertEquals(60 * MINUTE_MS, quota.getBlockedUntilMs());
+    }
+
+    @Test
+    public void downgradeClampsTokens() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.BLAZE, 0);
+        quota.setTier(RequestQuota.Tier.FLAME, 0);
+
+        assertEquals(4, quota.getTokens(), 0);
+    }
+
+    @Test
+    public void restoreSurvivesAWallClockJump() {
+        RequestQuota quota = new RequestQuota(RequestQuota.Tier.FLAME, 0);
+        quota.restore(2, 10 * MINUTE_MS, 3, 20 * MINUTE_MS, 0, MINUTE_MS);
+
+        // The saved refill time is in the future; refilling restarts from now
+        assertEquals(2, quota.getTokens(), 0);
+        assertEquals(3, quota.getPeriodRemaining());
+    }
+}
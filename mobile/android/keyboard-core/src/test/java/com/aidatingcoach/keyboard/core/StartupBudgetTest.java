@@ -0,0 +1,87 @@
+/**
+ * AI Dating Coach - Startup Budget Tests
+ * Phase bookkeeping against the same budget table StartupTracer uses in :app
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class StartupBudgetTest {
+
+    private static final long MS = 1000000;
+
+    @Test
+    public void withinBudgetSummary() {
+        StartupBudget budget = appBudget();
+        budget.begin("application_create", 0);
+        budget.begin("soloader", 10 * MS);
+        assertFalse(budget.end("soloader", 90 * MS));
+        assertFalse(budget.end("application_create", 200 * MS));
+        budget.record("first_frame", 0, 900 * MS);
+
+        assertEquals(Collections.<String>emptyList(), budget.getOverBudget());
+        assertEquals("startup[MainApplication] application_create=200ms/250 soloader=80ms/100"
+            + " first_frame=900ms/1200 | within budget", budget.getSummary("MainApplication"));
+    }
+
+    @Test
+    public void overBudgetPhasesAreNamed() {
+        StartupBudget budget = appBudget();
+        budget.begin("new_arch_entry", 0);
+        assertTrue(budget.end("new_arch_entry", 51 * MS));
+        budget.record("first_frame", 0, 1500 * MS);
+
+        assertEquals(Arrays.asList("new_arch_entry", "first_frame"), budget.getOverBudget());
+        assertTrue(budget.getSummary("x").endsWith("| over budget: [new_arch_entry, first_frame]"));
+    }
+
+    @Test
+    public void exactlyOnBudgetIsWithin() {
+        StartupBudget budget = appBudget();
+        budget.begin("activity_create", 0);
+        assertFalse(budget.end("activity_create", 300 * MS + MS - 1));
+    }
+
+    @Test
+    public void unbudgetedPhasesAreReportedOnly() {
+        StartupBudget budget = appBudget();
+        budget.begin("deferred_flipper", 0);
+        assertFalse(budget.end("deferred_flipper", 5000 * MS));
+
+        assertEquals(StartupBudget.NO_BUDGET, budget.getBudgetMs("deferred_flipper"));
+        assertEquals("startup[x] deferred_flipper=5000ms | within budget", budget.getSummary("x"));
+    }
+
+    @Test
+    public void openAndRepeatedPhases() {
+        StartupBudget budget = appBudget();
+        budget.begin("activity_create", 0);
+        budget.end("activity_create", 100 * MS);
+        budget.begin("activity_create", 200 * MS);
+
+        // Ending a phase that never began changes nothing
+        assertFalse(budget.end("soloader", 300 * MS));
+
+        assertEquals(100, budget.getDurationMs("activity_create"));
+        assertEquals("startup[x] activity_create=100ms/300 activity_create=open | within budget",
+            budget.getSummary("x"));
+    }
+
+    private static StartupBudget appBudget() {
+        // Same table as StartupTracer in :app
+        return new StartupBudget()
+            .setBudgetMs("application_create", 250)
+            .setBudgetMs("soloader", 100)
+            .setBudgetMs("new_arch_entry", 50)
+            .setBudgetMs("activity_create", 300)
+            .setBudgetMs("first_frame", 1200);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * AI Dating Coach - Suggestion Cache Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SuggestionCacheTest {
+
+    @Test
+    public void keyIgnoresCaseAndWhitespace() {
+        assertEquals(SuggestionCache.keyFor("Hey  there", "tinder"),
+            SuggestionCache.keyFor(" hey there \n", "tinder"));
+        assertNotEquals(SuggestionCache.keyFor("hey there", "tinder"),
+            SuggestionCache.keyFor("hey there", "hinge"));
+    }
+
+    @Test
+    public void appConversationMatchesKeyboardDraft() {
+        int window = AppProfile.TINDER.getContextWindowChars();
+        StringBuilder conversation = new StringBuilder();
+        while (conversation.length() < window * 2) {
+            conversation.append("So what are you up to this weekend? ");
+        }
+
+        // The keyboard's buffer only keeps the last window of the draft
+        TextContextBuffer buffer = new TextContextBuffer(window);
+        buffer.append(conversation);
+
+        assertEquals(SuggestionCache.keyForContext(conversation, "tinder"),
+            SuggestionCache.keyForContext(buffer.toString(), "tinder"));
+        assertFalse(SuggestionCache.isWholeContext(conversation, "tinder"));
+        assertTrue(SuggestionCache.isWholeContext(buffer.toString(), "tinder"));
+    }
+
+    @Test
+    public void disabledPlatformsHashTheWholeText() {
+        assertEquals(SuggestionCache.keyFor("hello", "messages"),
+            SuggestionCache.keyForContext("hello", "messages"));
+        assertEquals(SuggestionCache.keyFor("", null), SuggestionCache.keyForContext(null, null));
+    }
+}
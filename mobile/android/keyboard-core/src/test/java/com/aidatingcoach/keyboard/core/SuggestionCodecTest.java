@@ -0,0 +1,105 @@
+/**
+ * AI Dating Coach - Suggestion Codec Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SuggestionCodecTest {
+
+    @Test
+    public void roundTripsRecords() throws IOException {
+        List<SuggestionRecord> records = Arrays.asList(
+            new SuggestionRecord("Coffee on Sunday? \u2615", 2, 8.25, "Concrete plan"),
+            new SuggestionRecord("Tell me more!", 0, -1.5, "Shared reasoning"),
+            new SuggestionRecord("", 5, 0, "Shared reasoning")
+        );
+
+        List<SuggestionRecord> decoded = decode(SuggestionCodec.encode(records));
+
+        assertEquals(records.size(), decoded.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).getText(), decoded.get(i).getText());
+            assertEquals(records.get(i).getToneOrdinal(), decoded.get(i).getToneOrdinal());
+            assertEquals(records.get(i).getEngagementPrediction(), decoded.get(i).getEngagementPrediction(), 0.005);
+            assertEquals(records.get(i).getReasoning(), decoded.get(i).getReasoning());
+        }
+    }
+
+    @Test
+    public void repeatedReasoningGoesInTheDictionary() {
+        byte[] unique = SuggestionCodec.encode(Arrays.asList(
+            new SuggestionRecord("a", 0, 1, "first"),
+            new SuggestionRecord("b", 0, 1, "second")));
+        byte[] shared = SuggestionCodec.encode(Arrays.asList(
+            new SuggestionRecord("a", 0, 1, "reasoning"),
+            new SuggestionRecord("b", 0, 1, "reasoning")));
+
+        assertEquals(0, unique[3]);
+        assertEquals(SuggestionCodec.FLAG_DICTIONARY, shared[3]);
+    }
+
+    @Test
+    public void decoderIsReusableAcrossResponses() throws IOException {
+        SuggestionDecoder decoder = new SuggestionDecoder();
+        SuggestionRecord record = new SuggestionRecord();
+
+        decoder.begin(new ByteArrayInputStream(SuggestionCodec.encode(Arrays.asList(
+            new SuggestionRecord("a", 0, 1, "same"),
+            new SuggestionRecord("b", 0, 1, "same")))));
+        while (decoder.next(record)) {
+            assertEquals("same", record.getReasoning());
+        }
+
+        assertEquals(1, decoder.begin(new ByteArrayInputStream(SuggestionCodec.encode(Arrays.asList(
+            new SuggestionRecord("c", 1, 2, "other"))))));
+        assertTrue(decoder.next(record));
+        assertEquals("other", record.getReasoning());
+        assertFalse(decoder.next(record));
+    }
+
+    @Test
+    public void rejectsNewerVersions() {
+        byte[] payload = SuggestionCodec.encode(new ArrayList<SuggestionRecord>());
+        payload[2] = (byte) (SuggestionCodec.VERSION + 1);
+
+        try {
+            decode(payload);
+            fail("Expected a version error");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("version"));
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void rejectsTruncatedPayloads() throws IOException {
+        byte[] payload = SuggestionCodec.encode(Arrays.asList(new SuggestionRecord("hello", 0, 1, "why")));
+        decode(Arrays.copyOf(payload, payload.length - 2));
+    }
+
+    private static List<SuggestionRecord> decode(byte[] payload) throws IOException {
+        SuggestionDecoder decoder = new SuggestionDecoder();
+        decoder.begin(new ByteArrayInputStream(payload));
+
+        List<SuggestionRecord> records = new ArrayList<>();
+        SuggestionRecord record = new SuggestionRecord();
+        while (decoder.next(record)) {
+            records.add(new SuggestionRecord(record.getText(), record.getToneOrdinal(),
+                record.getEngagementPrediction(), record.getReasoning()));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * AI Dating Coach - Suggestion Strip Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SuggestionStripTest {
+
+    private static final SuggestionPool.Attributes<String[]> ATTRIBUTES = new SuggestionPool.Attributes<String[]>() {
+        @Override
+        public CharSequence getText(String[] item) {
+            return item[0];
+        }
+
+        @Override
+        public int getTone(String[] item) {
+            return Integer.parseInt(item[1]);
+        }
+
+        @Override
+        public double getScore(String[] item) {
+            return Double.parseDouble(item[2]);
+        }
+    };
+
+    @Test
+    public void repeatedListDoesNotChangeTheStrip() {
+        SuggestionStrip<String[]> strip = new SuggestionStrip<>(ATTRIBUTES);
+        List<String[]> streamed = new ArrayList<>();
+        streamed.add(item("Sounds fun", 0, 7));
+        assertTrue(strip.bind(streamed));
+
+        // The next partial is appended to the same list
+        streamed.add(item("Where to?", 1, 6));
+        assertTrue(strip.bind(streamed));
+
+        // The final result repeats what was streamed
+        assertFalse(strip.bind(Arrays.asList(item("Sounds fun", 0, 7), item("Where to?", 1, 6))));
+        assertEquals(2, strip.size());
+    }
+
+    @Test
+    public void anyVisibleDifferenceChangesTheStrip() {
+        SuggestionStrip<String[]> strip = new SuggestionStrip<>(ATTRIBUTES);
+        strip.bind(Arrays.asList(item("Sounds fun", 0, 7), item("Where to?", 1, 6)));
+
+        assertTrue(strip.bind(Arrays.asList(item("Where to?", 1, 6), item("Sounds fun", 0, 7))));
+        assertTrue(strip.bind(Arrays.asList(item("Where to?", 1, 6), item("Sounds fun!", 0, 7))));
+        assertTrue(strip.bind(Arrays.asList(item("Where to?", 2, 6), item("Sounds fun!", 0, 7))));
+        assertTrue(strip.bind(Arrays.asList(item("Where to?", 2, 8), item("Sounds fun!", 0, 7))));
+        assertTrue(strip.bind(Collections.singletonList(item("Where to?", 2, 8))));
+    }
+
+    @Test
+    public void clearReportsWhetherAnythingWasShowing() {
+        SuggestionStrip<String[]> strip = new SuggestionStrip<>(ATTRIBUTES);
+        assertFalse(strip.clear());
+
+        List<String[]> many = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            many.add(item("Reply " + i, i % 3, i));
+        }
+        assertTrue(strip.bind(many));
+        assertTrue(strip.clear());
+        assertEquals(0, strip.size());
+        assertTrue(strip.bind(many));
+    }
+
+    private static String[] item(String text, int tone, double score) {
+        return new String[] {text, String.valueOf(tone), String.valueOf(score)};
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * AI Dating Coach - Text Context Buffer Tests
+ */
+
+package com.aidatingcoach.keyboard.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TextContextBufferTest {
+
+    @Test
+    public void countsWordsWhileTyping() {
+        TextContextBuffer buffer = new TextContextBuffer(64);
+        buffer.append("hey there  you");
+
+        assertEquals("hey there  you", buffer.toString());
+        assertEquals(3, buffer.getWordCount());
+    }
+
+    @Test
+    public void deleteUndoesWordCount() {
+        TextContextBuffer buffer = new TextContextBuffer(64);
+        buffer.append("hi yo");
+        buffer.deleteBeforeCursor(2);
+
+        assertEquals("hi ", buffer.toString());
+        assertEquals(1, buffer.getWordCount());
+    }
+
+    @Test
+    public void evictsOldestCharactersPastCapacity() {
+        TextContextBuffer buffer = new TextContextBuffer(8);
+        buffer.append("hello big world");
+
+        assertEquals("ig world", buffer.toString());
+        assertEquals(2, buffer.getWordCount());
+    }
+
+    @Test
+    public void resyncKeepsTheTail() {
+        TextContextBuffer buffer = new TextContextBuffer(5);
+        buffer.resync("so what now");
+
+        assertEquals("t now", buffer.toString());
+        assertEquals(2, buffer.getWordCount());
+        assertFalse(buffer.isStale());
+    }
+
+    @Test
+    public void deletingPastTheWindowMarksStale() {
+        TextContextBuffer buffer = new TextContextBuffer(16);
+        buffer.reset(3);
+        buffer.resync("");
+        buffer.deleteBeforeCursor(1);
+
+        assertTrue(buffer.isStale());
+    }
+
+    @Test
+    public void cursorJumpMarksStale() {
+        TextContextBuffer buffer = new TextContextBuffer(16);
+        buffer.reset(0);
+        buffer.resync("");
+        buffer.append("abc");
+
+        buffer.onSelectionChanged(3, 3);
+        assertFalse(buffer.isStale());
+
+        buffer.onSelectionChanged(1, 1);
+        assertTrue(buffer.isStale());
+        assertEquals(1, buffer.getCursorPosition());
+    }
+
+    @Test
+    public void laggingUpdatesForOwnEditsKeepTheBuffer() {
+        TextContextBuffer buffer = new TextContextBuffer(16);
+        buffer.reset(0);
+        buffer.resync("");
+        buffer.append("hey");
+        buffer.deleteBeforeCursor(1);
+
+        // The editor reports each edit after the user has already typed on
+        buffer.onSelectionChanged(1, 1);
+        buffer.onSelectionChanged(3, 3);
+        buffer.onSelectionChanged(2, 2);
+
+        assertFalse(buffer.isStale());
+        assertEquals(2, buffer.getCursorPosition());
+    }
+
+    @Test
+    public void batchedInsertReportsOnlyTheFinalPosition() {
+        TextContextBuffer buffer = new TextContextBuffer(64);
+        buffer.reset(0);
+        buffer.resync("");
+        buffer.append("a much longer suggestion than the pending window");
+
+        buffer.onSelectionChanged(48, 48);
+        assertFalse(buffer.isStale());
+    }
+
+    @Test
+    public void reportedPositionsAreConsumedInOrder() {
+        TextContextBuffer buffer = new TextContextBuffer(16);
+        buffer.reset(0);
+        buffer.resync("");
+        buffer.append("ab");
+
+        // Position 1 was already passed, so seeing it again is a jump back
+        buffer.onSelectionChanged(2, 2);
+        buffer.append('c');
+        buffer.onSelectionChanged(1, 1);
+
+        assertTrue(buffer.isStale());
+        assertEquals(1, buffer.getCursorPosition());
+    }
+
+    @Test
+    public void selectionMarksStale() {
+        TextContextBuffer buffer = new TextContextBuffer(16);
+        buffer.reset(0);
+        buffer.resync("");
+        buffer.append("abc");
+
+        buffer.onSelectionChanged(0, 3);
+        assertTrue(buffer.isStale());
+    }
+}
@@ -14,11 +14,15 @@ import {SubscriptionProvider} from '@/contexts/SubscriptionContext';
 import {AppNavigator} from '@/navigation/AppNavigator';
 import {toastConfig} from '@/utils/toastConfig';
 import {requestPermissions} from '@/utils/permissions';
+import {registerKeyboardSuggestionStore} from '@/services/KeyboardSuggestionStore';
 
 const App: React.FC = () => {
   useEffect(() => {
     // Request necessary permissions on app start
     requestPermissions();
+
+    // Reuse suggestions the keyboard already computed, and share ours with it
+    registerKeyboardSuggestionStore();
   }, []);
 
   return (
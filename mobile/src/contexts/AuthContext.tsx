@@ -7,6 +7,7 @@ import React, {
 } from 'react';
 import {Session, User as SupabaseUser} from '@supabase/supabase-js';
 import {supabase} from '@/services/supabase';
+import {setKeyboardAccessToken} from '@/services/KeyboardSuggestionStore';
 import type {User, PersonaType, GoalType} from '@/types';
 import {showToast} from '@/utils/toast';
 
@@ -53,6 +54,7 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({children}) => {
     // Get initial session
     supabase.auth.getSession().then(({data: {session}}) => {
       setSession(session);
+      setKeyboardAccessToken(session?.access_token ?? null);
       if (session?.user) {
         loadUserProfile(session.user);
       } else {
@@ -65,6 +67,8 @@ export const AuthProvider: React.FC<AuthProviderProps> = ({children}) => {
       data: {subscription},
     } = supabase.auth.onAuthStateChange(async (event, session) => {
       setSession(session);
+      // Covers sign-in, sign-out and every token refresh
+      setKeyboardAccessToken(session?.access_token ?? null);
       
       if (session?.user) {
         await loadUserProfile(session.user);
@@ -0,0 +1,52 @@
+import { NativeModules, Platform } from 'react-native';
+import {
+  conversationAnalysisService,
+  SharedSuggestionStore
+} from '../../../shared/services/ConversationAnalysisService';
+import { MessageSuggestion } from '../../../shared/config/supabase';
+
+// Native side: com.aidatingcoach.keyboard.bridge.KeyboardSuggestionsModule
+interface KeyboardSuggestionsNativeModule {
+  getSuggestions(context: string, platform: string): Promise<MessageSuggestion[] | null>;
+  getConversationSuggestions(context: string, platform: string): Promise<MessageSuggestion[] | null>;
+  putSuggestions(context: string, platform: string, suggestions: MessageSuggestion[]): Promise<boolean>;
+  clear(): Promise<void>;
+  setSubscriptionTier(tier: string): Promise<void>;
+  setAccessToken(token: string | null): Promise<void>;
+}
+
+const nativeModule: KeyboardSuggestionsNativeModule | null =
+  Platform.OS === 'android' && NativeModules.KeyboardSuggestions ? NativeModules.KeyboardSuggestions : null;
+
+/**
+ * The Android keyboard's on-device suggestion store. The app and the keyboard
+ * run in one process, so suggestions either one computes are reused by the other.
+ */
+export const keyboardSuggestionStore: SharedSuggestionStore | null = nativeModule;
+
+// Connect the store to conversation analysis; a no-op where the keyboard module isn't built
+export function registerKeyboardSuggestionStore(): void {
+  if (keyboardSuggestionStore) {
+    conversationAnalysisService.setSharedSuggestionStore(keyboardSuggestionStore);
+  }
+}
+
+export async function clearKeyboardSuggestions(): Promise<void> {
+  if (nativeModule) {
+    await nativeModule.clear();
+  }
+}
+
+// Sizes the keyboard's request quota; takes the backend's tier names (spark, flame, blaze) or the app's (free, premium, pro, elite)
+export async function setKeyboardSubscriptionTier(tier: string): Promise<void> {
+  if (nativeModule) {
+    await nativeModule.setSubscriptionTier(tier);
+  }
+}
+
+// The keyboard's own coaching calls and usage uploads authenticate as the signed-in user
+export async function setKeyboardAccessToken(token: string | null): Promise<void> {
+  if (nativeModule) {
+    await nativeModule.setAccessToken(token);
+  }
+}
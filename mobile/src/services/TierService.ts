@@ -1,6 +1,7 @@
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { supabase } from '../config/supabase';
 import { AnalyticsService } from './AnalyticsService';
+import { setKeyboardSubscriptionTier } from './KeyboardSuggestionStore';
 import { 
   UserTier, 
   TierLimits, 
@@ -78,6 +79,7 @@ export class TierService {
 
       // Cache the tier data
       await AsyncStorage.setItem(`tier_${userId}`, JSON.stringify(this.currentTier));
+      await setKeyboardSubscriptionTier(this.currentTier.tierName);
 
       AnalyticsService.track('tier_data_loaded', {
         tierName: this.currentTier.tierName,
@@ -87,7 +89,15 @@ export class TierService {
     } catch (error) {
       console.error('Error loading tier data:', error);
       
-      // Fallback to free tier if error
+      // Offline or a server hiccup: keep the last known tier, and leave the
+      // keyboard on it too rather than demoting a paying user to free
+      if (this.currentTier?.userId === userId) {
+        this.tierLimits = this.getDefaultTierLimits(this.currentTier.tierName);
+        return;
+      }
+
+      // Nothing known yet: fall back to free for the app. The keyboard keeps
+      // its own last known tier.
       this.currentTier = {
         id: 'temp',
         userId,
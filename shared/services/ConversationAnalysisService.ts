@@ -38,10 +38,22 @@ export interface ConversationHistory {
   created_at: string;
 }
 
+/**
+ * Suggestion store shared with another surface, e.g. the Android keyboard's
+ * native store. Keyed by the conversation text and platform.
+ */
+export interface SharedSuggestionStore {
+  getSuggestions(context: string, platform: string): Promise<MessageSuggestion[] | null>;
+  // Only entries keyed by the whole text, not just its last context window
+  getConversationSuggestions(context: string, platform: string): Promise<MessageSuggestion[] | null>;
+  putSuggestions(context: string, platform: string, suggestions: MessageSuggestion[]): Promise<boolean>;
+}
+
 export class ConversationAnalysisService {
   private static instance: ConversationAnalysisService;
   private cache: Map<string, { result: ConversationAnalysisResult; timestamp: number }> = new Map();
   private readonly CACHE_DURATION = 60 * 60 * 1000; // 1 hour
+  private sharedStore: SharedSuggestionStore | null = null;
 
   public static getInstance(): ConversationAnalysisService {
     if (!ConversationAnalysisService.instance) {
@@ -50,6 +62,27 @@ export class ConversationAnalysisService {
     return ConversationAnalysisService.instance;
   }
 
+  /**
+   * Share text-analysis suggestions with another surface, and reuse its results
+   */
+  setSharedSuggestionStore(store: SharedSuggestionStore | null): void {
+    this.sharedStore = store;
+  }
+
+  /**
+   * Suggestions already computed for this text, here or by the keyboard,
+   * without a network call. Null if neither surface has them.
+   */
+  async getCachedSuggestions(text: string, platform: string): Promise<MessageSuggestion[] | null> {
+    const cacheKey = await this.generateCacheKey({ type: 'text', content: text, platform });
+    const cachedResult = this.getCachedResult(cacheKey);
+    if (cachedResult) {
+      return cachedResult.next_message_suggestions;
+    }
+
+    return this.getSharedSuggestions(text, platform);
+  }
+
   /**
    * Analyze a conversation using the Supabase Edge Function
    */
@@ -94,6 +127,13 @@ export class ConversationAnalysisService {
         }
       }
 
+      // Suggestions the keyboard already computed for this exact conversation don't need
+      // generating again; ones for a draft's last window answer a different question
+      let sharedSuggestions: MessageSuggestion[] | null = null;
+      if (input.type === 'text' && options.useCache !== false && options.generateSuggestions !== false) {
+        sharedSuggestions = await this.getSharedSuggestions(input.content as string, input.platform, true);
+      }
+
       // Process input based on type
       let requestPayload: ConversationAnalysisRequest;
       
@@ -132,7 +172,7 @@ export class ConversationAnalysisService {
         body: {
           ...requestPayload,
           options: {
-            generate_suggestions: options.generateSuggestions !== false,
+            generate_suggestions: options.generateSuggestions !== false && !sharedSuggestions,
             analysis_depth: options.analysisDepth || 'detailed'
           }
         }
@@ -164,7 +204,7 @@ export class ConversationAnalysisService {
         response_quality_score: data.response_quality_score,
         context_summary: data.context_summary || '',
         coaching_feedback: data.coaching_feedback || '',
-        next_message_suggestions: this.formatMessageSuggestions(data.next_message_suggestions || []),
+        next_message_suggestions: sharedSuggestions || this.formatMessageSuggestions(data.next_message_suggestions || []),
         red_flags: data.red_flags || [],
         positive_signals: data.positive_signals || [],
         analysis_date: new Date().toISOString(),
@@ -173,6 +213,9 @@ export class ConversationAnalysisService {
 
       // Cache the result
       this.cacheResult(cacheKey, analysisResult);
+      if (input.type === 'text' && !sharedSuggestions) {
+        this.shareSuggestions(input.content as string, input.platform, analysisResult.next_message_suggestions);
+      }
 
       // Save to database
       await this.saveAnalysisResult(analysisResult, input);
@@ -566,6 +609,37 @@ export class ConversationAnalysisService {
     }
   }
 
+  private async getSharedSuggestions(
+    text: string,
+    platform: string,
+    wholeConversation: boolean = false
+  ): Promise<MessageSuggestion[] | null> {
+    if (!this.sharedStore) {
+      return null;
+    }
+
+    try {
+      const suggestions = wholeConversation
+        ? await this.sharedStore.getConversationSuggestions(text, platform)
+        : await this.sharedStore.getSuggestions(text, platform);
+      return suggestions && suggestions.length > 0 ? suggestions : null;
+    } catch (error) {
+      console.error('Shared suggestion lookup error:', error);
+      return null;
+    }
+  }
+
+  private shareSuggestions(text: string, platform: string, suggestions: MessageSuggestion[]): void {
+    if (!this.sharedStore || suggestions.length === 0) {
+      return;
+    }
+
+    // Fire and forget; the keyboard simply misses if the write fails
+    this.sharedStore.putSuggestions(text, platform, suggestions).catch(error => {
+      console.error('Shared suggestion write error:', error);
+    });
+  }
+
   private formatMessageSuggestions(suggestions: any[]): MessageSuggestion[] {
     return suggestions.map(suggestion => ({
       text: suggestion.text || suggestion.message || '',
@@ -9,6 +9,12 @@ jest.mock('@react-native-async-storage/async-storage', () => ({
   clear: jest.fn(),
 }));
 
+// Mock react-native; TierService reaches it through the keyboard suggestion store
+jest.mock('react-native', () => ({
+  NativeModules: {},
+  Platform: { OS: 'ios', select: jest.fn((options: any) => options.ios) },
+}));
+
 // Mock fetch
 global.fetch = jest.fn();
 const mockFetch = fetch as jest.MockedFunction<typeof fetch>;